@@ -0,0 +1,42 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.service.MemberIngestService;
+
+import java.util.stream.IntStream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트, MySQL 대신 임베디드 H2 를 사용한다.
+ */
+public final class H2Fixture {
+
+    private H2Fixture() {
+    }
+
+    public static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "decorator.datasource.enabled=false", // p6spy 로그 off
+                        "logging.level.org.hibernate.SQL=warn",
+                        "logging.level.root=warn")
+                .run();
+    }
+
+    // teamA ~ teamJ 에 나눠서 rows 명 등록
+    public static void loadMembers(ConfigurableApplicationContext context, int rows) {
+        context.getBean(MemberIngestService.class).ingest(IntStream.range(0, rows)
+                .mapToObj(i -> new MemberIngestRow("member" + i, i % 100, "team" + (char) ('A' + i % 10))));
+    }
+}
@@ -0,0 +1,133 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.projection.FastProjections;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 프로젝션 방식별 row 당 비용 (QuerydslBasicTest 의 findDtoBy* 와 같은 방식)
+ * - 결과는 ROWS 로 나눈 row 1건당 시간
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    static final int ROWS = 10_000;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = H2Fixture.start();
+        H2Fixture.loadMembers(context, ROWS);
+        em = context.getBean(EntityManagerFactory.class).createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<MemberDto> setter() {
+        return queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<MemberDto> fields() {
+        return queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<UserDto> fieldsAlias() {
+        return queryFactory
+                .select(Projections.fields(UserDto.class,
+                        ExpressionUtils.as(member.username, "name"),
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<MemberDto> fastSetter() {
+        return queryFactory
+                .select(FastProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<MemberDto> fastFields() {
+        return queryFactory
+                .select(FastProjections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<UserDto> fastFieldsAlias() {
+        return queryFactory
+                .select(FastProjections.fields(UserDto.class,
+                        ExpressionUtils.as(member.username, "name"),
+                        member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<MemberDto> constructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<MemberDto> queryProjection() {
+        return queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+}
@@ -0,0 +1,70 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberConditions;
+import study.querydsl.repository.MemberSort;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * DB 없이 쿼리 조립 / JPQL 문자열 생성 비용만 측정
+ * - 조건 / 정렬은 MemberRepositoryImpl.searchContent 와 같은 MemberConditions.JPA, MemberSort 로 만든다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBuildBenchmark {
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    Pageable pageable = PageRequest.of(0, 10);
+    MemberSort memberSort = new MemberSort(new String[]{MemberSort.ID}, 1000);
+
+    @Setup
+    public void setUp() {
+        condition.setUsername("member1");
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(40);
+    }
+
+    @Benchmark
+    public JPAQuery<MemberTeamDto> build() {
+        return searchQuery();
+    }
+
+    @Benchmark
+    public String buildAndSerialize() {
+        return searchQuery().toString();
+    }
+
+    private JPAQuery<MemberTeamDto> searchQuery() {
+        return new JPAQuery<>()
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberConditions.JPA.of(condition))
+                .orderBy(memberSort.orderBy(pageable, MemberSort.JPA))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+    }
+}
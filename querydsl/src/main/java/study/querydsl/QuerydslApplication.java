@@ -1,11 +1,22 @@
 package study.querydsl;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.SQLTemplatesRegistry;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
+import study.querydsl.metrics.InstrumentedJPAQueryFactory;
+import study.querydsl.metrics.QueryMetrics;
 
 import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 
 @SpringBootApplication
 public class QuerydslApplication {
@@ -15,8 +26,24 @@ public class QuerydslApplication {
 	}
 
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em){
-		return new JPAQueryFactory(em);
+	JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics){
+		// 쿼리마다 실행 시간 / row 수 등을 micrometer 로 기록
+		return new InstrumentedJPAQueryFactory(em, queryMetrics);
+	}
+
+	// 처음 쓸 때 만든다. (SQLTemplates 를 고르려고 커넥션을 여므로 sql-backend 를 안 쓰면 시작할 때 DB 에 붙지 않는다)
+	@Bean
+	@Lazy
+	SQLQueryFactory sqlQueryFactory(DataSource dataSource) throws SQLException {
+		// DB 종류(MySQL, H2 ..)에 맞는 SQLTemplates 를 고른다.
+		SQLTemplates templates;
+		try (Connection connection = dataSource.getConnection()) {
+			templates = new SQLTemplatesRegistry().getTemplates(connection.getMetaData());
+		}
+		com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates);
+		configuration.setExceptionTranslator(new SpringExceptionTranslator());
+		// JPA 트랜잭션에 묶인 커넥션을 같이 사용
+		return new SQLQueryFactory(configuration, new SpringConnectionProvider(dataSource));
 	}
 
 }
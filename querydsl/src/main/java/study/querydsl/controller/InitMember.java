@@ -3,13 +3,11 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.service.MemberIngestService;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.util.stream.IntStream;
 
 @Profile("local")
 @Component
@@ -23,20 +21,13 @@ public class InitMember {
     }
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService {
-        @PersistenceContext private EntityManager em;
+        private final MemberIngestService memberIngestService;
 
-        @Transactional
         public void init(){
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+i, i, selectedTeam));
-            }
+            memberIngestService.ingest(IntStream.range(0, 100)
+                    .mapToObj(i -> new MemberIngestRow("member" + i, i, i % 2 == 0 ? "teamA" : "teamB")));
         }
     }
 }
@@ -1,37 +1,143 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.InvalidSortException;
+import study.querydsl.repository.MemberAsyncRepository;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 200; // spring.data.web.pageable.max-page-size 와 동일
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberAsyncRepository memberAsyncRepository;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
         return memberJpaRepository.search(condition);
     }
 
+    // 쿼리는 MemberAsyncRepository 쓰레드에서 실행, tomcat 쓰레드는 바로 반환된다.
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageSimple(condition, pageable);
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
+        return memberAsyncRepository.searchPageSimple(condition, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageComplex(condition, pageable);
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
+        return memberAsyncRepository.searchPageComplex(condition, pageable);
+    }
+
+    // offset 대신 cursor(keyset) 로 페이징, 첫 페이지는 cursor 없이 order 만 지정
+    @GetMapping("/v4/members")
+    public MemberCursorResult searchMemberV4(MemberSearchCondition condition,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "ID") MemberCursor.Order order,
+                                             @RequestParam(defaultValue = "10") int size){
+        MemberCursor memberCursor = StringUtils.hasText(cursor) ? MemberCursor.decode(cursor) : MemberCursor.first(order);
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        Slice<MemberTeamDto> slice = memberRepository.searchAfter(condition, memberCursor, pageSize);
+        return MemberCursorResult.of(slice, memberCursor);
+    }
+
+    /**
+     * v1 과 같은 조건이지만 List 로 올리지 않고 row 단위로 바로 응답에 쓴다.
+     * - format: ndjson(한 줄에 json 하나) | csv
+     */
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMemberV1(MemberSearchCondition condition,
+                                                                @RequestParam(defaultValue = "ndjson") String format){
+        boolean csv = "csv".equalsIgnoreCase(format);
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write("memberId,username,age,teamId,teamName\n");
+            }
+            try {
+                memberJpaRepository.searchForEach(condition, dto -> {
+                    try {
+                        writer.write(csv ? toCsvLine(dto) : objectMapper.writeValueAsString(dto));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : new MediaType("application", "x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * 잘못된 cursor 같은 요청 오류(400)는 사유를 그대로 응답한다.
+     * - 기본 에러 응답(server.error.include-message: never)은 message 를 숨기므로 "cursor 로 조회하세요" 같은 안내가 전달되지 않는다.
+     * - CompletableFuture 로 반환한 /v2, /v3 에서 실패한 경우도 여기로 온다.
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Map<String, String>> handleResponseStatus(ResponseStatusException e) {
+        return ResponseEntity.status(e.getStatus())
+                .body(Map.of("message", e.getReason() == null ? e.getStatus().getReasonPhrase() : e.getReason()));
+    }
+
+    // 정렬 오류는 repository 에서 도메인 예외로 던진다. (MemberSort, ShardedMemberRepository)
+    @ExceptionHandler(InvalidSortException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidSort(InvalidSortException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+
+    private String toCsvLine(MemberTeamDto dto) {
+        return dto.getMemberId() + ","
+                + csvValue(dto.getUsername()) + ","
+                + dto.getAge() + ","
+                + (dto.getTeamId() == null ? "" : dto.getTeamId()) + ","
+                + csvValue(dto.getTeamName());
+    }
+
+    private String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
     }
 
 }
@@ -0,0 +1,28 @@
+package study.querydsl.datasource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * SHOW SLAVE STATUS 의 Seconds_Behind_Master
+ * - 복제가 멈춰 있으면(null) 무한대로 본다.
+ * - 복제 설정이 없는 DB(로컬 등)는 지연 0
+ */
+public class MySqlReplicaLagProbe implements ReplicaLagProbe {
+
+    @Override
+    public long lagSeconds(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+            if (!rs.next()) {
+                return 0;
+            }
+            long lag = rs.getLong("Seconds_Behind_Master");
+            return rs.wasNull() ? Long.MAX_VALUE : lag;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package study.querydsl.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 트랜잭션 없이 실행되는 조회 메서드를 replica 로 보낸다.
+ * - 트랜잭션 안에서 호출되면 무시하고 트랜잭션의 readOnly 여부를 따른다.
+ * - spring.jpa.open-in-view 는 꺼야 한다. 켜져 있으면 요청 단위 EntityManager 가 replica 커넥션을 계속 잡고 있어서
+ *   같은 요청의 @Transactional 쓰기가 replica 로 간다. (꺼져 있으면 트랜잭션 밖 조회마다 EntityManager 를 열고 닫는다)
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadOnlyQuery {
+}
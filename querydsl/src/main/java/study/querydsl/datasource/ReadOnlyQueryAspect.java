@@ -0,0 +1,19 @@
+package study.querydsl.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+@Aspect
+public class ReadOnlyQueryAspect {
+
+    @Around("@annotation(study.querydsl.datasource.ReadOnlyQuery) || @within(study.querydsl.datasource.ReadOnlyQuery)")
+    public Object readOnly(ProceedingJoinPoint joinPoint) throws Throwable {
+        ReadOnlyQueryContext.enter();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadOnlyQueryContext.exit();
+        }
+    }
+}
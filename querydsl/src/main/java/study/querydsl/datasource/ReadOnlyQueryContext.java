@@ -0,0 +1,29 @@
+package study.querydsl.datasource;
+
+/**
+ * 현재 쓰레드가 @ReadOnlyQuery 메서드 안에 있는지 (중첩 호출 고려해서 depth 로 관리)
+ */
+public final class ReadOnlyQueryContext {
+
+    private static final ThreadLocal<Integer> DEPTH = ThreadLocal.withInitial(() -> 0);
+
+    private ReadOnlyQueryContext() {
+    }
+
+    public static boolean isReadOnly() {
+        return DEPTH.get() > 0;
+    }
+
+    static void enter() {
+        DEPTH.set(DEPTH.get() + 1);
+    }
+
+    static void exit() {
+        int depth = DEPTH.get() - 1;
+        if (depth <= 0) {
+            DEPTH.remove();
+        } else {
+            DEPTH.set(depth);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package study.querydsl.datasource;
+
+public enum ReplicaBalancing {
+    ROUND_ROBIN,
+    LEAST_CONNECTIONS // HikariCP active connection 수 기준
+}
@@ -0,0 +1,12 @@
+package study.querydsl.datasource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * replica 의 복제 지연(초)을 조회한다.
+ */
+@FunctionalInterface
+public interface ReplicaLagProbe {
+    long lagSeconds(DataSource replica) throws SQLException;
+}
@@ -0,0 +1,166 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기는 replica, 쓰기는 primary 로 보낸다.
+ * - @Transactional(readOnly = true) 이거나, 트랜잭션 밖의 @ReadOnlyQuery 메서드면 읽기
+ * - 커넥션을 실제로 얻는 시점에 readOnly 여부를 알아야 하므로 LazyConnectionDataSourceProxy 로 감싸서 사용한다.
+ * - lag-check-interval 마다 복제 지연을 확인해서 max-lag 을 넘은 replica 는 제외, 남은 replica 가 없으면 primary
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaBalancing balancing;
+    private final long maxLagSeconds;
+    private final long lagCheckIntervalSeconds;
+    private final ReplicaLagProbe lagProbe;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    Map<String, DataSource> replicas,
+                                    ReplicaBalancing balancing,
+                                    long maxLagSeconds,
+                                    long lagCheckIntervalSeconds,
+                                    ReplicaLagProbe lagProbe) {
+        this.primary = primary;
+        this.balancing = balancing;
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagCheckIntervalSeconds = lagCheckIntervalSeconds;
+        this.lagProbe = lagProbe;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            this.replicas.add(new Replica(name, dataSource));
+            targets.put(name, dataSource);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        refreshLag();
+        if (lagCheckIntervalSeconds > 0 && !replicas.isEmpty()) {
+            lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "replica-lag-checker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            lagChecker.scheduleWithFixedDelay(this::refreshLag,
+                    lagCheckIntervalSeconds, lagCheckIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!isReadOnly()) {
+            return PRIMARY;
+        }
+        Replica replica = selectReplica();
+        return replica == null ? PRIMARY : replica.name;
+    }
+
+    private boolean isReadOnly() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 쓰기 트랜잭션 안에서는 @ReadOnlyQuery 라도 같은 커넥션(primary)을 써야 한다.
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+        return ReadOnlyQueryContext.isReadOnly();
+    }
+
+    private Replica selectReplica() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        if (balancing == ReplicaBalancing.LEAST_CONNECTIONS) {
+            return healthy.stream()
+                    .min(Comparator.comparingInt(Replica::activeConnections))
+                    .get();
+        }
+        return healthy.get(Math.floorMod(sequence.getAndIncrement(), healthy.size()));
+    }
+
+    public void refreshLag() {
+        for (Replica replica : replicas) {
+            try {
+                long lag = lagProbe.lagSeconds(replica.dataSource);
+                replica.healthy = lag <= maxLagSeconds;
+                if (!replica.healthy) {
+                    log.warn("replica {} 복제 지연 {}s, primary 로 대체", replica.name, lag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.healthy = false;
+                log.warn("replica {} 상태 확인 실패", replica.name, e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            close(replica.dataSource);
+        }
+        close(primary);
+    }
+
+    private void close(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private int activeConnections() {
+            if (dataSource instanceof HikariDataSource) {
+                HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+}
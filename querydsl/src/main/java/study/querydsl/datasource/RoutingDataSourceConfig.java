@@ -0,0 +1,64 @@
+package study.querydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * member.datasource.routing.enabled=true 일 때만 사용
+ * - primary 는 spring.datasource, replica 는 member.datasource.routing.replicas
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "member.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             RoutingDataSourceProperties routingProperties) {
+        DataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<RoutingDataSourceProperties.Replica> replicaProperties = routingProperties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            RoutingDataSourceProperties.Replica replica = replicaProperties.get(i);
+            replicas.put("replica" + i, DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build());
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas,
+                routingProperties.getBalancing(),
+                routingProperties.getMaxLagSeconds(),
+                routingProperties.getLagCheckIntervalSeconds(),
+                new MySqlReplicaLagProbe());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReadOnlyQueryAspect readOnlyQueryAspect() {
+        return new ReadOnlyQueryAspect();
+    }
+}
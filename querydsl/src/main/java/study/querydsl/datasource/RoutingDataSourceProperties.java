@@ -0,0 +1,28 @@
+package study.querydsl.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+    private ReplicaBalancing balancing = ReplicaBalancing.ROUND_ROBIN;
+    private long maxLagSeconds = 5;
+    private long lagCheckIntervalSeconds = 5;
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.dialect;
+
+import org.hibernate.dialect.MySQL8Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * JPQL 에는 window function 문법이 없어서 dialect 에 SQL 함수로 등록해서 사용한다.
+ * - querydsl 에서는 Expressions.numberTemplate(Long.class, "count_over()") 형태로 호출
+ * - window function 은 MySQL 8.0 부터 지원
+ */
+public class CustomMySQLDialect extends MySQL8Dialect {
+
+    public static final String COUNT_OVER = "count_over";
+
+    public CustomMySQLDialect() {
+        super();
+        // 페이징(limit) 적용 전 전체 row 수
+        registerFunction(COUNT_OVER, new SQLFunctionTemplate(StandardBasicTypes.LONG, "count(*) over()"));
+    }
+}
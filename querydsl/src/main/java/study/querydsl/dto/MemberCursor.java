@@ -0,0 +1,68 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset(seek) 페이징용 커서
+ * - offset 대신 마지막으로 읽은 row 의 정렬키(age, id) 이후부터 조회한다.
+ * - 클라이언트에는 base64 로 인코딩된 문자열(token)만 노출한다.
+ * - 잘못된 token 은 클라이언트 잘못이므로 400 (ResponseStatusException)
+ */
+@Getter
+public class MemberCursor {
+
+    public enum Order {
+        ID,     // order by member.id
+        AGE_ID  // order by member.age, member.id
+    }
+
+    private final Order order;
+    private final Integer age;
+    private final Long memberId;
+
+    private MemberCursor(Order order, Integer age, Long memberId) {
+        this.order = order;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    // 첫 페이지 (seek 조건 없음)
+    public static MemberCursor first(Order order) {
+        return new MemberCursor(order == null ? Order.ID : order, null, null);
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            Order order = Order.valueOf(parts[0]);
+            if (order == Order.AGE_ID) {
+                return new MemberCursor(order, Integer.valueOf(parts[1]), Long.valueOf(parts[2]));
+            }
+            return new MemberCursor(order, null, Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 cursor 입니다. cursor=" + token, e);
+        }
+    }
+
+    // 조회된 마지막 row 기준으로 다음 커서를 만든다.
+    public MemberCursor next(MemberTeamDto last) {
+        return new MemberCursor(order, last.getAge(), last.getMemberId());
+    }
+
+    public String encode() {
+        String raw = order == Order.AGE_ID
+                ? order + ":" + age + ":" + memberId
+                : order + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return memberId == null;
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+@Data
+public class MemberCursorResult {
+    private List<MemberTeamDto> content;
+    private boolean hasNext;
+    private String next; // 다음 페이지 요청 시 cursor 로 그대로 넘긴다.
+
+    public MemberCursorResult(List<MemberTeamDto> content, boolean hasNext, String next) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.next = next;
+    }
+
+    public static MemberCursorResult of(Slice<MemberTeamDto> slice, MemberCursor cursor) {
+        List<MemberTeamDto> content = slice.getContent();
+        String next = slice.hasNext()
+                ? cursor.next(content.get(content.size() - 1)).encode()
+                : null;
+        return new MemberCursorResult(content, slice.hasNext(), next);
+    }
+}
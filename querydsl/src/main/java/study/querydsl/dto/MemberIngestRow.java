@@ -0,0 +1,14 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberIngestRow {
+    private String username;
+    private int age;
+    private String teamName; // 없으면 새로 만든다, null 이면 팀 없음
+}
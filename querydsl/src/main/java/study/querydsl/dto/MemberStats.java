@@ -0,0 +1,40 @@
+package study.querydsl.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * count / sum / max / min(age) 집계, 파티션별 결과를 plus 로 합친다. (avg 는 sum / count)
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberStats {
+
+    public static final MemberStats EMPTY = new MemberStats(0, 0, null, null);
+
+    private final long count;
+    private final long sum;
+    private final Integer max;
+    private final Integer min;
+
+    public MemberStats(long count, long sum, Integer max, Integer min) {
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.min = min;
+    }
+
+    public Double getAvg() {
+        return count == 0 ? null : (double) sum / count;
+    }
+
+    public MemberStats plus(MemberStats other) {
+        return new MemberStats(
+                count + other.count,
+                sum + other.sum,
+                max == null ? other.max : other.max == null ? max : Math.max(max, other.max),
+                min == null ? other.min : other.min == null ? min : Math.min(min, other.min));
+    }
+}
@@ -9,9 +9,16 @@ import javax.persistence.*;
 @Setter // 실무에서는 @Setter 사용하면 안됨
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+// 검색조건 조합별 covering 인덱스 (IndexAdvisor.searchConditionShapes() 로 만든 제안)
+@Table(indexes = {
+        @Index(name = "idx_member_username_team_id_age", columnList = "username, team_id, age"),
+        @Index(name = "idx_member_team_id_age_username", columnList = "team_id, age, username"),
+        @Index(name = "idx_member_age_username_team_id", columnList = "age, username, team_id")
+})
 public class Member {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50) // MySQL 은 테이블로 대체, pooled
     @Column(name = "member_id")
     private Long id;
 
@@ -0,0 +1,43 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * MemberTeamDto 검색용 비정규화 테이블 (member join team 결과)
+ * - member.read-model: VIEW 일 때만 채워지고 조회에 쓰인다.
+ * - 직접 저장하지 않는다. MemberSearchViewSync 가 member / team 변경을 반영한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@Table(name = "member_search_view", indexes = {
+        @Index(name = "idx_member_search_view_username_team_name_age", columnList = "username, team_name, age"),
+        @Index(name = "idx_member_search_view_team_name_age_username", columnList = "team_name, age, username"),
+        @Index(name = "idx_member_search_view_age_username_team_name", columnList = "age, username, team_name"),
+        @Index(name = "idx_member_search_view_team_id", columnList = "team_id") // 팀 이름 변경 시 team_id 로 update
+})
+public class MemberSearchView {
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String username;
+
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "team_name")
+    private String teamName;
+}
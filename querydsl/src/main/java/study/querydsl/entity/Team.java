@@ -1,26 +1,38 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 2차 캐시, 벌크 update/delete 시 hibernate 가 region 을 비운다
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 @Getter
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 public class Team {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq")
+    @SequenceGenerator(name = "team_seq", sequenceName = "team_seq", allocationSize = 50) // MySQL 은 테이블로 대체, pooled
     @Column(name = "team_id")
     private long id;
     private String name;
 
+    @BatchSize(size = 100) // team.getMembers() 를 팀마다 따로 조회하지 않고 in 으로 묶어서 조회
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    public void changeName(String name) {
+        this.name = name;
+    }
 }
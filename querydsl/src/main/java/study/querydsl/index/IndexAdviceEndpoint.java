@@ -0,0 +1,46 @@
+package study.querydsl.index;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/indexadvice
+ * - 실행된 쿼리 모양 기준 인덱스 제안 + DDL + @Index + EXPLAIN 결과
+ */
+@Component
+@Endpoint(id = "indexadvice")
+public class IndexAdviceEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+    private final IndexExplainer indexExplainer;
+
+    public IndexAdviceEndpoint(IndexAdvisor indexAdvisor, IndexExplainer indexExplainer) {
+        this.indexAdvisor = indexAdvisor;
+        this.indexExplainer = indexExplainer;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> advice() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (IndexProposal proposal : indexAdvisor.adviseFromMetrics()) {
+            IndexExplainer.Result explain = indexExplainer.explain(proposal);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("shape", proposal.getShape());
+            row.put("ddl", proposal.toDdl());
+            row.put("annotation", proposal.toAnnotation());
+            row.put("sql", explain.getSql());
+            row.put("type", explain.getType());
+            row.put("key", explain.getKey());
+            row.put("possibleKeys", explain.getPossibleKeys());
+            row.put("extra", explain.getExtra());
+            result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+package study.querydsl.index;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import study.querydsl.metrics.QueryMetrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * where 절 모양(QueryMetrics.shapeOf)으로 member / team 인덱스를 제안한다.
+ * - 모양은 querydsl.query 지표의 shape 태그(실제 실행된 쿼리)나 searchConditionShapes()(검색조건 조합 16가지)에서 가져온다.
+ * - 컬럼 순서: 동등 조건 -> 범위 조건 1개 -> 나머지 MemberTeamDto 조회 컬럼(covering)
+ * - team.name 조건은 team(name) 으로 팀을 찾고 member.team_id 로 들어오는 join 으로 본다.
+ */
+@Component
+public class IndexAdvisor {
+
+    static final String MEMBER = "member";
+    static final String TEAM = "team";
+
+    // 동등 조건 컬럼 우선순위 (앞쪽이 선택도가 높다)
+    private static final List<String> MEMBER_EQUALITY_ORDER = List.of("username", "team_id", "age");
+    // MemberTeamDto 를 인덱스만으로 만들기 위한 컬럼 (member_id 는 PK)
+    private static final List<String> MEMBER_COVERING = List.of("age", "username", "team_id");
+
+    private static final Set<String> EQUALITY_OPS = Set.of("EQ", "IN");
+    private static final Set<String> RANGE_OPS = Set.of("GOE", "GT", "LOE", "LT", "BETWEEN", "STARTS_WITH");
+
+    private final MeterRegistry registry;
+
+    public IndexAdvisor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // 지금까지 실행된 쿼리 모양 기준
+    public List<IndexProposal> adviseFromMetrics() {
+        Set<String> shapes = new TreeSet<>();
+        for (Meter meter : registry.find("querydsl.query").meters()) {
+            String shape = meter.getId().getTag("shape");
+            if (shape != null) {
+                shapes.add(shape);
+            }
+        }
+        return advise(shapes);
+    }
+
+    public List<IndexProposal> advise(Collection<String> shapes) {
+        Map<IndexProposal, IndexProposal> proposals = new LinkedHashMap<>();
+        for (String shape : shapes) {
+            for (IndexProposal proposal : proposalsOf(shape)) {
+                proposals.putIfAbsent(proposal, proposal);
+            }
+        }
+
+        List<IndexProposal> result = new ArrayList<>();
+        for (IndexProposal proposal : proposals.keySet()) {
+            boolean covered = proposals.keySet().stream().anyMatch(proposal::coveredBy);
+            if (!covered) {
+                result.add(proposal);
+            }
+        }
+        return result;
+    }
+
+    private List<IndexProposal> proposalsOf(String shape) {
+        Set<String> equality = new LinkedHashSet<>();
+        Set<String> range = new LinkedHashSet<>();
+        boolean teamName = false;
+
+        for (String part : shape.split(",")) {
+            String[] pathAndOp = part.trim().split(" ");
+            if (pathAndOp.length != 2) {
+                continue;
+            }
+            String path = pathAndOp[0];
+            String op = pathAndOp[1];
+            if (path.equals("team.name") || path.equals("member.team.name")) {
+                teamName |= EQUALITY_OPS.contains(op);
+                equality.add("team_id");
+                continue;
+            }
+            String column = memberColumn(path);
+            if (column == null) {
+                continue;
+            }
+            if (EQUALITY_OPS.contains(op)) {
+                equality.add(column);
+            } else if (RANGE_OPS.contains(op)) {
+                range.add(column);
+            }
+        }
+        // 같은 컬럼에 = 와 범위가 같이 있으면(keyset 의 age > ? or age = ?) 범위로 본다.
+        equality.removeAll(range);
+
+        List<IndexProposal> proposals = new ArrayList<>();
+        if (teamName) {
+            proposals.add(new IndexProposal(TEAM, List.of("name"), 1, shape));
+        }
+        if (equality.isEmpty() && range.isEmpty()) {
+            return proposals;
+        }
+
+        List<String> columns = new ArrayList<>();
+        for (String column : MEMBER_EQUALITY_ORDER) {
+            if (equality.contains(column)) {
+                columns.add(column);
+            }
+        }
+        int equalityColumns = columns.size();
+        if (!range.isEmpty()) {
+            columns.add(range.iterator().next());
+        }
+        for (String column : MEMBER_COVERING) {
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+        proposals.add(new IndexProposal(MEMBER, columns, equalityColumns, shape));
+        return proposals;
+    }
+
+    private static String memberColumn(String path) {
+        switch (path) {
+            case "member.username":
+                return "username";
+            case "member.age":
+                return "age";
+            case "member.team.id":
+                return "team_id";
+            default:
+                return null; // member.id 는 PK
+        }
+    }
+
+    /**
+     정적 분석: MemberSearchCondition 으로 만들 수 있는 where 절 모양 전부
+     - repository 의 usernameEq / teamNameEq / ageGoe / ageLoe 와 같은 식으로 조립한다.
+     */
+    public static List<String> searchConditionShapes() {
+        List<String> shapes = new ArrayList<>();
+        for (int mask = 1; mask < 16; mask++) {
+            Predicate where = Expressions.allOf(
+                    (mask & 1) != 0 ? member.username.eq("") : null,
+                    (mask & 2) != 0 ? member.team.name.eq("") : null,
+                    (mask & 4) != 0 ? member.age.goe(0) : null,
+                    (mask & 8) != 0 ? member.age.loe(0) : null);
+            shapes.add(QueryMetrics.shapeOf(where));
+        }
+        return shapes;
+    }
+}
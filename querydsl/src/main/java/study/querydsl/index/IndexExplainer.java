@@ -0,0 +1,129 @@
+package study.querydsl.index;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 제안된 인덱스를 MySQL EXPLAIN 으로 확인한다.
+ * - 제안을 만든 where 절 모양으로 대표 SQL 을 만들고 (값은 아무거나) member 테이블 접근 방식을 본다.
+ * - 데이터가 적으면 옵티마이저가 full scan 을 고를 수 있으므로 possible_keys 에 들어가는지도 같이 본다.
+ */
+@Component
+public class IndexExplainer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndexExplainer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Result explain(IndexProposal proposal) {
+        String sql = representativeSql(proposal);
+        String alias = proposal.getTable().equals(IndexAdvisor.TEAM) ? "t" : "m";
+        for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + sql)) {
+            if (alias.equals(row.get("table"))) {
+                return new Result(proposal, sql, (String) row.get("type"), (String) row.get("key"),
+                        (String) row.get("possible_keys"), (String) row.get("Extra"));
+            }
+        }
+        throw new IllegalStateException("EXPLAIN 결과에 " + proposal.getTable() + " 테이블이 없습니다. sql=" + sql);
+    }
+
+    static String representativeSql(IndexProposal proposal) {
+        List<String> where = new ArrayList<>();
+        boolean joinTeam = false;
+        for (String part : proposal.getShape().split(",")) {
+            String[] pathAndOp = part.trim().split(" ");
+            if (pathAndOp.length != 2) {
+                continue;
+            }
+            String condition = condition(pathAndOp[0], pathAndOp[1]);
+            if (condition != null) {
+                where.add(condition);
+                joinTeam |= condition.startsWith("t.");
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("select m.member_id, m.username, m.age, m.team_id");
+        sql.append(joinTeam ? ", t.name from member m join team t on t.team_id = m.team_id" : " from member m");
+        if (!where.isEmpty()) {
+            sql.append(" where ").append(String.join(" and ", where));
+        }
+        return sql.toString();
+    }
+
+    private static String condition(String path, String op) {
+        String column;
+        String value;
+        switch (path) {
+            case "member.username":
+                column = "m.username";
+                value = "'member1'";
+                break;
+            case "member.age":
+                column = "m.age";
+                value = "20";
+                break;
+            case "member.team.id":
+                column = "m.team_id";
+                value = "1";
+                break;
+            case "team.name":
+            case "member.team.name":
+                column = "t.name";
+                value = "'teamA'";
+                break;
+            default:
+                return null;
+        }
+        switch (op) {
+            case "EQ":
+                return column + " = " + value;
+            case "GOE":
+                return column + " >= " + value;
+            case "GT":
+                return column + " > " + value;
+            case "LOE":
+                return column + " <= " + value;
+            case "LT":
+                return column + " < " + value;
+            default:
+                return null;
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class Result {
+        private final IndexProposal proposal;
+        private final String sql;
+        private final String type;         // ALL 이면 full table scan
+        private final String key;          // 실제 선택된 인덱스
+        private final String possibleKeys;
+        private final String extra;        // Using index 면 covering
+
+        private Result(IndexProposal proposal, String sql, String type, String key, String possibleKeys, String extra) {
+            this.proposal = proposal;
+            this.sql = sql;
+            this.type = type;
+            this.key = key;
+            this.possibleKeys = possibleKeys;
+            this.extra = extra;
+        }
+
+        public boolean isFullScan() {
+            return "ALL".equals(type);
+        }
+
+        public boolean isCandidate() {
+            String name = proposal.getName();
+            return name.equals(key) || (possibleKeys != null && List.of(possibleKeys.split(",")).contains(name));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.index;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 인덱스 제안 하나
+ * - columns = 동등(=) 조건 컬럼 + 범위 조건 컬럼 1개 + 나머지 조회 컬럼(covering)
+ * - InnoDB 보조 인덱스에는 PK 가 붙어 있으므로 PK 컬럼은 넣지 않는다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode(of = {"table", "columns"})
+public class IndexProposal {
+
+    private final String table;
+    private final List<String> columns;
+    private final int equalityColumns; // columns 앞에서 몇 개가 동등 조건인지
+    private final String shape;        // 이 제안을 만든 where 절 모양
+
+    public IndexProposal(String table, List<String> columns, int equalityColumns, String shape) {
+        this.table = table;
+        this.columns = List.copyOf(columns);
+        this.equalityColumns = equalityColumns;
+        this.shape = shape;
+    }
+
+    public String getName() {
+        return "idx_" + table + "_" + String.join("_", columns);
+    }
+
+    public String toDdl() {
+        return "create index " + getName() + " on " + table + " (" + String.join(", ", columns) + ");";
+    }
+
+    // 엔티티 @Table(indexes = ...) 에 그대로 붙여 넣을 수 있는 형태
+    public String toAnnotation() {
+        return "@Index(name = \"" + getName() + "\", columnList = \"" + String.join(", ", columns) + "\")";
+    }
+
+    /**
+     other 가 이 인덱스의 동등 조건 prefix 로 시작하고 조회 컬럼도 모두 가지고 있으면 이 인덱스는 필요 없다.
+     - 뒤따르는 범위 조건은 other 에서는 인덱스 안 필터가 되지만, 동등 조건으로 이미 좁혀진 뒤라 감수한다.
+     - 범위 조건만 있는 인덱스(동등 조건 0개)는 다른 인덱스로 대신할 수 없다.
+     */
+    boolean coveredBy(IndexProposal other) {
+        return table.equals(other.table)
+                && !columns.equals(other.columns)
+                && equalityColumns > 0
+                && other.equalityColumns > equalityColumns
+                && other.columns.subList(0, equalityColumns).equals(columns.subList(0, equalityColumns))
+                && other.columns.containsAll(columns);
+    }
+}
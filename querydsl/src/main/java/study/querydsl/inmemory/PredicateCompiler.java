@@ -0,0 +1,327 @@
+package study.querydsl.inmemory;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * querydsl Predicate(QMember / QTeam ...) 를 java.util.function.Predicate 로 컴파일한다.
+ * - 경로(member.team.name)는 컴파일 시점에 getter MethodHandle 하나로 합쳐 두고 row 마다 리플렉션을 하지 않는다.
+ * - 대상 타입이 아닌 루트(ex. Member 대상에서 team.name)는 대상의 getter(getTeam) 를 거쳐 찾는다. (join 대신)
+ * - null 비교는 SQL 처럼 unknown(null) 이고 최종적으로 true 일 때만 통과한다. (not(unknown) == unknown)
+ * - 문자열 비교는 Java equals 기준이다. (MySQL collation 처럼 대소문자를 무시하지 않는다)
+ * - 컴파일된 Predicate 는 상태가 없어서 parallel stream 에서 그대로 쓸 수 있다.
+ */
+public final class PredicateCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final MethodHandle IS_NULL;
+    private static final MethodHandle RETURN_NULL;
+
+    static {
+        try {
+            IS_NULL = MethodHandles.lookup().findStatic(Objects.class, "isNull",
+                    MethodType.methodType(boolean.class, Object.class));
+            RETURN_NULL = MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private PredicateCompiler() {
+    }
+
+    public static <T> Predicate<T> compile(com.querydsl.core.types.Predicate where, Class<T> type) {
+        if (where == null) {
+            return t -> true;
+        }
+        Condition condition = condition(where, type);
+        return t -> condition.test(t) == Boolean.TRUE;
+    }
+
+    public static <T> List<T> filter(Collection<T> source, com.querydsl.core.types.Predicate where, Class<T> type) {
+        return source.stream().filter(compile(where, type)).collect(Collectors.toList());
+    }
+
+    public static <T> List<T> filterParallel(Collection<T> source, com.querydsl.core.types.Predicate where, Class<T> type) {
+        return source.parallelStream().filter(compile(where, type)).collect(Collectors.toList());
+    }
+
+    // 3값 논리 (TRUE / FALSE / null == unknown)
+    @FunctionalInterface
+    private interface Condition {
+        Boolean test(Object row);
+    }
+
+    private static Condition condition(Expression<?> expression, Class<?> type) {
+        if (!(expression instanceof Operation)) {
+            if (expression instanceof Path) {
+                Function<Object, Object> value = value(expression, type);
+                return row -> (Boolean) value.apply(row);
+            }
+            throw new IllegalArgumentException("지원하지 않는 조건입니다. " + expression);
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        Operator op = operation.getOperator();
+
+        if (op == Ops.AND) {
+            Condition left = condition(operation.getArg(0), type);
+            Condition right = condition(operation.getArg(1), type);
+            return row -> and(left.test(row), right.test(row));
+        }
+        if (op == Ops.OR) {
+            Condition left = condition(operation.getArg(0), type);
+            Condition right = condition(operation.getArg(1), type);
+            return row -> or(left.test(row), right.test(row));
+        }
+        if (op == Ops.NOT) {
+            Condition inner = condition(operation.getArg(0), type);
+            return row -> {
+                Boolean result = inner.test(row);
+                return result == null ? null : !result;
+            };
+        }
+        if (op == Ops.IS_NULL || op == Ops.IS_NOT_NULL) {
+            Function<Object, Object> value = value(operation.getArg(0), type);
+            boolean expectNull = op == Ops.IS_NULL;
+            return row -> (value.apply(row) == null) == expectNull;
+        }
+        if (op == Ops.BETWEEN) {
+            Function<Object, Object> value = value(operation.getArg(0), type);
+            Function<Object, Object> from = value(operation.getArg(1), type);
+            Function<Object, Object> to = value(operation.getArg(2), type);
+            return row -> {
+                Object v = value.apply(row);
+                Object a = from.apply(row);
+                Object b = to.apply(row);
+                return v == null || a == null || b == null ? null : compare(v, a) >= 0 && compare(v, b) <= 0;
+            };
+        }
+        if (op == Ops.IN || op == Ops.NOT_IN) {
+            Function<Object, Object> value = value(operation.getArg(0), type);
+            Collection<?> values = (Collection<?>) constant(operation.getArg(1));
+            boolean in = op == Ops.IN;
+            return row -> {
+                Object v = value.apply(row);
+                if (v == null) {
+                    return null;
+                }
+                for (Object candidate : values) {
+                    if (candidate != null && equal(v, candidate)) {
+                        return in;
+                    }
+                }
+                return !in;
+            };
+        }
+        if (op == Ops.LIKE) {
+            Function<Object, Object> value = value(operation.getArg(0), type);
+            Pattern pattern = likePattern((String) constant(operation.getArg(1)));
+            return row -> {
+                Object v = value.apply(row);
+                return v == null ? null : pattern.matcher((String) v).matches();
+            };
+        }
+
+        Function<Object, Object> left = value(operation.getArg(0), type);
+        Function<Object, Object> right = value(operation.getArg(1), type);
+        BinaryTest test = binary(op);
+        return row -> {
+            Object l = left.apply(row);
+            Object r = right.apply(row);
+            return l == null || r == null ? null : test.test(l, r);
+        };
+    }
+
+    @FunctionalInterface
+    private interface BinaryTest {
+        boolean test(Object left, Object right);
+    }
+
+    private static BinaryTest binary(Operator op) {
+        if (op == Ops.EQ) {
+            return PredicateCompiler::equal;
+        } else if (op == Ops.NE) {
+            return (l, r) -> !equal(l, r);
+        } else if (op == Ops.GT) {
+            return (l, r) -> compare(l, r) > 0;
+        } else if (op == Ops.GOE) {
+            return (l, r) -> compare(l, r) >= 0;
+        } else if (op == Ops.LT) {
+            return (l, r) -> compare(l, r) < 0;
+        } else if (op == Ops.LOE) {
+            return (l, r) -> compare(l, r) <= 0;
+        } else if (op == Ops.EQ_IGNORE_CASE) {
+            return (l, r) -> ((String) l).equalsIgnoreCase((String) r);
+        } else if (op == Ops.STARTS_WITH) {
+            return (l, r) -> ((String) l).startsWith((String) r);
+        } else if (op == Ops.ENDS_WITH) {
+            return (l, r) -> ((String) l).endsWith((String) r);
+        } else if (op == Ops.STRING_CONTAINS) {
+            return (l, r) -> ((String) l).contains((String) r);
+        }
+        throw new IllegalArgumentException("지원하지 않는 연산자입니다. " + op);
+    }
+
+    // 값 꺼내기: 상수 또는 경로(getter MethodHandle)
+    private static Function<Object, Object> value(Expression<?> expression, Class<?> type) {
+        if (expression instanceof Constant) {
+            Object constant = ((Constant<?>) expression).getConstant();
+            return row -> constant;
+        }
+        if (expression instanceof Path) {
+            MethodHandle getter = getter((Path<?>) expression, type);
+            return row -> {
+                try {
+                    return (Object) getter.invokeExact(row);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+        throw new IllegalArgumentException("지원하지 않는 식입니다. " + expression);
+    }
+
+    private static Object constant(Expression<?> expression) {
+        if (expression instanceof Constant) {
+            return ((Constant<?>) expression).getConstant();
+        }
+        throw new IllegalArgumentException("상수만 지원합니다. " + expression);
+    }
+
+    /**
+     member.team.name -> getTeam() 다음 getName(), 중간 값이 null 이면 null
+     전체를 (Object)Object MethodHandle 하나로 만든다.
+     */
+    private static MethodHandle getter(Path<?> path, Class<?> type) {
+        Deque<Path<?>> segments = new ArrayDeque<>();
+        Path<?> current = path;
+        while (!current.getMetadata().isRoot()) {
+            PathMetadata metadata = current.getMetadata();
+            if (metadata.getPathType() != PathType.PROPERTY) {
+                throw new IllegalArgumentException("프로퍼티 경로만 지원합니다. " + path);
+            }
+            segments.push(current);
+            current = metadata.getParent();
+        }
+
+        MethodHandle handle = MethodHandles.identity(Object.class);
+        Class<?> owner = current.getType();
+        if (!owner.isAssignableFrom(type)) {
+            // 다른 루트 (ex. Member 대상에서 team) 는 그 타입을 돌려주는 getter 를 거친다.
+            Method join = findGetterReturning(type, owner, path);
+            handle = chain(handle, join);
+        }
+        for (Path<?> segment : segments) {
+            Method method = findGetter(owner, segment.getMetadata().getName(), path);
+            handle = chain(handle, method);
+            owner = method.getReturnType();
+        }
+        return handle;
+    }
+
+    private static MethodHandle chain(MethodHandle handle, Method method) {
+        try {
+            MethodHandle next = LOOKUP.unreflect(method).asType(MethodType.methodType(Object.class, Object.class));
+            MethodHandle nullSafe = MethodHandles.guardWithTest(IS_NULL, RETURN_NULL, next);
+            return MethodHandles.filterReturnValue(handle, nullSafe);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("getter 에 접근할 수 없습니다. " + method, e);
+        }
+    }
+
+    private static Method findGetter(Class<?> owner, String property, Path<?> path) {
+        String suffix = property.substring(0, 1).toUpperCase() + property.substring(1);
+        for (String name : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                return owner.getMethod(name);
+            } catch (NoSuchMethodException ignored) {
+                // 다음 이름
+            }
+        }
+        throw new IllegalArgumentException(owner.getSimpleName() + " 에 " + property + " getter 가 없습니다. " + path);
+    }
+
+    private static Method findGetterReturning(Class<?> type, Class<?> target, Path<?> path) {
+        for (Method method : type.getMethods()) {
+            if (method.getParameterCount() == 0 && method.getReturnType() == target
+                    && method.getName().startsWith("get")) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(type.getSimpleName() + " 에서 " + target.getSimpleName()
+                + " 로 갈 수 있는 getter 가 없습니다. " + path);
+    }
+
+    // 숫자는 타입이 달라도(Integer / Long) 값으로, 나머지(엔티티 등)는 equals 로
+    private static boolean equal(Object left, Object right) {
+        return left instanceof Number && right instanceof Number ? compare(left, right) == 0 : left.equals(right);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+            Number l = (Number) left;
+            Number r = (Number) right;
+            if (isIntegral(l) && isIntegral(r)) {
+                return Long.compare(l.longValue(), r.longValue());
+            }
+            return Double.compare(l.doubleValue(), r.doubleValue());
+        }
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+
+    private static Boolean and(Boolean left, Boolean right) {
+        if (left == Boolean.FALSE || right == Boolean.FALSE) {
+            return false;
+        }
+        return left == null || right == null ? null : true;
+    }
+
+    private static Boolean or(Boolean left, Boolean right) {
+        if (left == Boolean.TRUE || right == Boolean.TRUE) {
+            return true;
+        }
+        return left == null || right == null ? null : false;
+    }
+
+    // like 패턴(%, _) -> 정규식
+    private static Pattern likePattern(String like) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : like.toCharArray()) {
+            if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
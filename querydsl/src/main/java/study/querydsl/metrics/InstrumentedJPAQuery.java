@@ -0,0 +1,112 @@
+package study.querydsl.metrics;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * fetch() / fetchOne() / stream() / iterate() 시간, row 수, 직렬화 시간을 QueryMetrics 에 기록한다.
+ * - select() 는 같은 인스턴스를 돌려주므로 InstrumentedJPAQueryFactory 에서 만든 쿼리는 모두 측정된다.
+ * - stream() / iterate() 는 닫을 때 기록한다. (시간은 다 읽을 때까지, row 수는 읽은 만큼)
+ */
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics queryMetrics;
+    private long serializeNanos;
+    private String jpql;
+    private List<Object> bindings = Collections.emptyList();
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics) {
+        super(em);
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public List<T> fetch() {
+        long start = System.nanoTime();
+        List<T> results = super.fetch();
+        record(callSite(), System.nanoTime() - start, results.size());
+        return results;
+    }
+
+    @Override
+    public T fetchOne() {
+        long start = System.nanoTime();
+        T result = super.fetchOne();
+        record(callSite(), System.nanoTime() - start, result == null ? 0 : 1);
+        return result;
+    }
+
+    @Override
+    public Stream<T> stream() {
+        long start = System.nanoTime();
+        Stream<T> stream = super.stream();
+        QueryMetrics.CallSite callSite = callSite(); // 닫는 곳이 아니라 연 곳
+        AtomicInteger rows = new AtomicInteger();
+        return stream
+                .peek(row -> rows.incrementAndGet())
+                .onClose(() -> record(callSite, System.nanoTime() - start, rows.get()));
+    }
+
+    @Override
+    public CloseableIterator<T> iterate() {
+        long start = System.nanoTime();
+        CloseableIterator<T> iterator = super.iterate();
+        QueryMetrics.CallSite callSite = callSite();
+        return new CloseableIterator<T>() {
+            private int rows;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                T next = iterator.next();
+                rows++;
+                return next;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+
+            @Override
+            public void close() {
+                iterator.close();
+                record(callSite, System.nanoTime() - start, rows);
+            }
+        };
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow) {
+        long start = System.nanoTime();
+        JPQLSerializer serializer = super.serialize(forCountRow);
+        serializeNanos = System.nanoTime() - start;
+        jpql = serializer.toString();
+        bindings = serializer.getConstants();
+        return serializer;
+    }
+
+    // limit / offset 은 JPQL 에 없으므로 페이징 여부도 같이 구분한다.
+    private QueryMetrics.CallSite callSite() {
+        boolean paged = getMetadata().getModifiers().isRestricting();
+        return queryMetrics.callSite(paged ? jpql + " [paged]" : jpql, () -> QueryMetrics.shapeOf(getMetadata().getWhere()));
+    }
+
+    private void record(QueryMetrics.CallSite callSite, long elapsedNanos, int rows) {
+        // 엔티티를 select 한 경우만 영속성 컨텍스트에 올라간다. (DTO / 스칼라는 0)
+        int hydrated = getMetadata().getProjection() instanceof EntityPath ? rows : 0;
+        queryMetrics.record(callSite, elapsedNanos, serializeNanos, rows, hydrated, jpql, bindings);
+    }
+}
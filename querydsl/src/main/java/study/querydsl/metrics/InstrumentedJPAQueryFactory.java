@@ -0,0 +1,23 @@
+package study.querydsl.metrics;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final QueryMetrics queryMetrics;
+
+    public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+        super(em);
+        this.em = em;
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InstrumentedJPAQuery<Void>(em, queryMetrics);
+    }
+}
@@ -0,0 +1,162 @@
+package study.querydsl.metrics;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * querydsl 쿼리 지표 (/actuator/metrics/querydsl.query ...)
+ * - method: 쿼리를 실행한 repository 메서드 (ex. MemberRepositoryImpl.searchContent)
+ * - shape : where 절 모양, 값은 빼고 경로 + 연산자만 (ex. member.age GOE,team.name EQ)
+ * - slow-threshold-ms 를 넘으면 JPQL 과 바인딩 값을 로그로 남긴다.
+ * - method 는 실행할 때마다 StackWalker 로 찾는다. (처음 만나는 study.querydsl 프레임까지만 본다)
+ *   (JPQL, method) 별로 등록한 meter 를 CallSite 에 캐시해서 매번 registry 에서 찾지 않는다.
+ */
+@Slf4j
+@Component
+public class QueryMetrics {
+
+    private static final int MAX_CALL_SITES = 1000;
+    private static final Class<?>[] INSTRUMENTATION =
+            {QueryMetrics.class, InstrumentedJPAQuery.class, InstrumentedJPAQueryFactory.class};
+
+    private final MeterRegistry registry;
+    private final long slowThresholdNanos;
+    private final Map<List<String>, CallSite> callSites = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry,
+                        @Value("${member.query-metrics.slow-threshold-ms:500}") long slowThresholdMillis) {
+        this.registry = registry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    // jpql 을 실행한 메서드의 meter, shape 는 처음 등록할 때만 계산한다. (같은 JPQL 이면 where 모양도 같다)
+    public CallSite callSite(String jpql, Supplier<String> shape, Class<?>... skip) {
+        String method = caller(skip);
+        List<String> key = List.of(jpql, method);
+        CallSite callSite = callSites.get(key);
+        if (callSite != null) {
+            return callSite;
+        }
+        if (callSites.size() >= MAX_CALL_SITES) {
+            callSites.clear();
+        }
+        return callSites.computeIfAbsent(key, k -> new CallSite(method, shape.get()));
+    }
+
+    public void record(CallSite callSite, long elapsedNanos, long serializeNanos,
+                       int rows, int hydrated, String jpql, List<Object> bindings) {
+        callSite.query.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        callSite.serialization.record(serializeNanos, TimeUnit.NANOSECONDS);
+        callSite.rows.record(rows);
+        callSite.hydrated.record(hydrated);
+
+        if (elapsedNanos >= slowThresholdNanos) {
+            log.warn("slow query {}ms [{}] shape=[{}] rows={}\n{}\nparams={}",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), callSite.method, callSite.shape, rows, jpql, bindings);
+        }
+    }
+
+    // 쿼리를 실행한 study.querydsl 코드 (QueryMetrics, InstrumentedJPAQuery(Factory), skip 클래스 제외) 의 클래스.메서드
+    public static String caller(Class<?>... skip) {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("study.querydsl.")
+                        && !isSkipped(frame.getClassName(), INSTRUMENTATION)
+                        && !isSkipped(frame.getClassName(), skip))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+
+    // 클래스 자신과 내부 / 익명 클래스 (이름이 같은 접두어인 다른 클래스는 제외하지 않는다)
+    private static boolean isSkipped(String className, Class<?>[] skip) {
+        for (Class<?> type : skip) {
+            if (className.equals(type.getName()) || className.startsWith(type.getName() + "$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String shapeOf(Predicate where) {
+        if (where == null) {
+            return "none";
+        }
+        Set<String> parts = new TreeSet<>();
+        collect(where, parts);
+        return String.join(",", parts);
+    }
+
+    private static void collect(Expression<?> expression, Set<String> parts) {
+        if (!(expression instanceof Operation)) {
+            return;
+        }
+        Operation<?> operation = (Operation<?>) expression;
+        if (operation.getOperator() == Ops.AND || operation.getOperator() == Ops.OR || operation.getOperator() == Ops.NOT) {
+            for (Expression<?> arg : operation.getArgs()) {
+                collect(arg, parts);
+            }
+            return;
+        }
+        Expression<?> first = operation.getArg(0);
+        parts.add((first instanceof Path ? first.toString() : "expr") + " " + operation.getOperator());
+    }
+
+    public final class CallSite {
+        private final String method;
+        private final String shape;
+        private final Timer query;
+        private final Timer serialization;
+        private final DistributionSummary rows;
+        private final DistributionSummary hydrated;
+
+        private CallSite(String method, String shape) {
+            this.method = method;
+            this.shape = shape;
+            this.query = Timer.builder("querydsl.query")
+                    .description("querydsl 쿼리 실행 시간 (직렬화 + DB + 결과 변환)")
+                    .tag("method", method)
+                    .tag("shape", shape)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.serialization = Timer.builder("querydsl.query.serialization")
+                    .description("querydsl -> JPQL 직렬화 시간")
+                    .tag("method", method)
+                    .register(registry);
+            this.rows = DistributionSummary.builder("querydsl.query.rows")
+                    .description("조회된 row 수")
+                    .tag("method", method)
+                    .register(registry);
+            this.hydrated = DistributionSummary.builder("querydsl.query.hydrated")
+                    .description("영속성 컨텍스트에 올라간 엔티티 수")
+                    .tag("method", method)
+                    .register(registry);
+        }
+
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    private static String simpleName(String className) {
+        String name = className.substring(className.lastIndexOf('.') + 1);
+        int inner = name.indexOf('$');
+        return inner < 0 ? name : name.substring(0, inner);
+    }
+}
@@ -0,0 +1,228 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / Projections.fields 대체 (row 마다 리플렉션 하지 않는다)
+ * - DTO 타입 + 프로퍼티 이름 조합마다 처음 한번만 접근 코드를 만들어 캐시한다.
+ *   bean   : 기본 생성자, setter 를 LambdaMetafactory 로 만든 람다 (직접 호출과 같은 코드)
+ *   fields : 필드 setter MethodHandle (private 필드도 가능)
+ * - 이름은 경로 이름(member.username -> username) 또는 별칭(member.username.as("name"), ExpressionUtils.as) 을 쓴다.
+ * - null 값은 Projections.bean 과 같이 넣지 않는다. (primitive 필드 기본값 유지)
+ * - DTO 에 @QueryProjection 을 붙이지 않아도 생성자 프로젝션 수준으로 동작한다.
+ */
+public final class FastProjections {
+
+    private static final Map<Key, Hydrator<?>> HYDRATORS = new ConcurrentHashMap<>();
+
+    private FastProjections() {
+    }
+
+    public static <T> FastBean<T> bean(Class<? extends T> type, Expression<?>... args) {
+        return new FastBean<>(type, false, Arrays.asList(args));
+    }
+
+    public static <T> FastBean<T> fields(Class<? extends T> type, Expression<?>... args) {
+        return new FastBean<>(type, true, Arrays.asList(args));
+    }
+
+    // setter 이름 기준, 값은 결과 순서 (람다 구현체)
+    public interface Setter {
+        void set(Object bean, Object value);
+    }
+
+    public static final class FastBean<T> extends FactoryExpressionBase<T> {
+
+        private final List<Expression<?>> args;
+        private final Hydrator<T> hydrator;
+
+        @SuppressWarnings("unchecked")
+        private FastBean(Class<? extends T> type, boolean fields, List<Expression<?>> args) {
+            super((Class<? extends T>) type);
+            this.args = Collections.unmodifiableList(new ArrayList<>(args));
+            List<String> names = new ArrayList<>(args.size());
+            for (Expression<?> arg : args) {
+                names.add(nameOf(arg));
+            }
+            this.hydrator = (Hydrator<T>) HYDRATORS.computeIfAbsent(new Key(type, fields, names),
+                    key -> Hydrator.compile(key.type, key.fields, key.names));
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        public T newInstance(Object... values) {
+            return hydrator.hydrate(values);
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof FastBean)) {
+                return false;
+            }
+            FastBean<?> other = (FastBean<?>) obj;
+            return getType().equals(other.getType()) && args.equals(other.args) && hydrator == other.hydrator;
+        }
+    }
+
+    private static String nameOf(Expression<?> arg) {
+        if (arg instanceof Path) {
+            return ((Path<?>) arg).getMetadata().getName();
+        }
+        if (arg instanceof Operation && ((Operation<?>) arg).getOperator() == Ops.ALIAS) {
+            return ((Path<?>) ((Operation<?>) arg).getArg(1)).getMetadata().getName();
+        }
+        throw new IllegalArgumentException("경로나 별칭(as)이 있는 식만 사용할 수 있습니다. " + arg);
+    }
+
+    static final class Hydrator<T> {
+        private final Supplier<T> constructor;
+        private final Setter[] setters;
+
+        private Hydrator(Supplier<T> constructor, Setter[] setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+
+        T hydrate(Object[] values) {
+            T bean = constructor.get();
+            for (int i = 0; i < setters.length; i++) {
+                Object value = values[i];
+                if (value != null) {
+                    setters[i].set(bean, value);
+                }
+            }
+            return bean;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Hydrator<T> compile(Class<T> type, boolean fields, List<String> names) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                CallSite constructorSite = LambdaMetafactory.metafactory(lookup, "get",
+                        MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class),
+                        lookup.findConstructor(type, MethodType.methodType(void.class)),
+                        MethodType.methodType(type));
+                Supplier<T> constructor = (Supplier<T>) constructorSite.getTarget().invokeExact();
+
+                Setter[] setters = new Setter[names.size()];
+                for (int i = 0; i < names.size(); i++) {
+                    setters[i] = fields ? fieldSetter(lookup, type, names.get(i)) : beanSetter(lookup, type, names.get(i));
+                }
+                return new Hydrator<>(constructor, setters);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException(type.getName() + " 프로젝션을 만들 수 없습니다. " + names, e);
+            }
+        }
+
+        // setter 호출 람다 생성 (Integer -> int 언박싱도 람다 안에서)
+        private static Setter beanSetter(MethodHandles.Lookup lookup, Class<?> type, String name) throws Throwable {
+            Method method = findSetter(type, name);
+            Class<?> parameter = MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType();
+            CallSite site = LambdaMetafactory.metafactory(lookup, "set",
+                    MethodType.methodType(Setter.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    lookup.unreflect(method),
+                    MethodType.methodType(void.class, type, parameter));
+            return (Setter) site.getTarget().invokeExact();
+        }
+
+        private static Setter fieldSetter(MethodHandles.Lookup lookup, Class<?> type, String name) throws Throwable {
+            Field field = findField(type, name);
+            MethodHandle handle = lookup.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+
+        private static Method findSetter(Class<?> type, String name) {
+            String setterName = "set" + name.substring(0, 1).toUpperCase() + name.substring(1);
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(setterName) && method.getParameterCount() == 1) {
+                    return method;
+                }
+            }
+            throw new IllegalArgumentException(type.getSimpleName() + " 에 " + setterName + " 가 없습니다.");
+        }
+
+        private static Field findField(Class<?> type, String name) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                        return field;
+                    }
+                }
+            }
+            throw new IllegalArgumentException(type.getSimpleName() + " 에 " + name + " 필드가 없습니다.");
+        }
+    }
+
+    private static final class Key {
+        private final Class<?> type;
+        private final boolean fields;
+        private final List<String> names;
+
+        private Key(Class<?> type, boolean fields, List<String> names) {
+            this.type = type;
+            this.fields = fields;
+            this.names = names;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return type == key.type && fields == key.fields && names.equals(key.names);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, fields, names);
+        }
+    }
+}
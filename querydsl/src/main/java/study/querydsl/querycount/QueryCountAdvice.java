@@ -0,0 +1,48 @@
+package study.querydsl.querycount;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 응답 body 를 쓰기 직전(커밋 전)에 QueryCountFilter 가 건 scope 를 확인한다.
+ * - FAIL 모드의 예외가 여기서 나야 요청이 실제로 실패한다. (필터에서는 이미 응답이 나간 뒤)
+ * - CompletableFuture 응답(/v2, /v3)도 async dispatch 에서 body 를 쓸 때 여기를 지난다.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class QueryCountAdvice implements ResponseBodyAdvice<Object> {
+
+    private final QueryGuard queryGuard;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return queryGuard.getMode() != QueryGuardMode.OFF;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return body;
+        }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+        QueryCountScope scope = (QueryCountScope) servletRequest.getAttribute(QueryCountFilter.SCOPE_ATTRIBUTE);
+        // 예외 응답(@ExceptionHandler)을 쓸 때 다시 들어와도 한번만 확인한다.
+        if (scope == null || servletRequest.getAttribute(QueryCountFilter.CHECKED_ATTRIBUTE) != null) {
+            return body;
+        }
+        servletRequest.setAttribute(QueryCountFilter.CHECKED_ATTRIBUTE, Boolean.TRUE);
+        queryGuard.check(scope, servletRequest.getMethod() + " " + servletRequest.getRequestURI());
+        return body;
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.querycount;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 요청 단위로 실행된 SQL 수를 센다, 확인은 응답이 커밋되기 전에 QueryCountAdvice 가 한다.
+ * - 필터에서는 이미 응답이 나간 뒤라 FAIL 모드여도 실패시킬 수 없다.
+ *   advice 를 거치지 않은 응답(StreamingResponseBody 등)만 여기서 로그로 남긴다. (QueryGuard.report)
+ * - CompletableFuture 로 응답하는 요청(/v2, /v3)은 쿼리가 끝난 뒤 async dispatch 에서 확인한다.
+ *   scope 는 request attribute 로 넘기고, 쿼리 쓰레드에는 MemberAsyncRepository 가 QueryCountScope.propagate() 로 건다.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    static final String SCOPE_ATTRIBUTE = QueryCountFilter.class.getName() + ".SCOPE";
+    static final String CHECKED_ATTRIBUTE = QueryCountFilter.class.getName() + ".CHECKED";
+
+    private final QueryGuard queryGuard;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (queryGuard.getMode() == QueryGuardMode.OFF) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        QueryCountScope scope = (QueryCountScope) request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope == null) {
+            scope = QueryCountScope.create();
+            request.setAttribute(SCOPE_ATTRIBUTE, scope);
+        }
+        try (QueryCountScope.Binding ignored = scope.bind()) {
+            filterChain.doFilter(request, response);
+        }
+        // 비동기 처리 중이면 아직 쿼리가 끝나지 않았다.
+        if (!isAsyncStarted(request) && request.getAttribute(CHECKED_ATTRIBUTE) == null) {
+            queryGuard.report(scope, request.getMethod() + " " + request.getRequestURI());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.querycount;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록한다.
+ */
+@Component
+public class QueryCountListener extends JdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCountScope scope = QueryCountScope.current();
+        if (scope != null) {
+            scope.record(statementInformation.getSql());
+        }
+    }
+}
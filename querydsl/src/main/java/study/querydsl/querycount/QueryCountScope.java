@@ -0,0 +1,105 @@
+package study.querydsl.querycount;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 요청(또는 임의 구간) 동안 실행된 SQL 을 센다.
+ * - QueryCountListener(p6spy)가 현재 쓰레드의 scope 에 기록한다.
+ * - try-with-resources 로 열고 닫는다, 중첩되면 안쪽 scope 가 닫힐 때 바깥 scope 로 돌아간다.
+ *   안쪽 scope 에 기록된 SQL 은 바깥 scope 에도 더해진다.
+ * - 다른 쓰레드(QueryExecutors)에서 실행되는 쿼리는 propagate() 로 감싸야 같은 scope 에 기록된다.
+ *   여러 쓰레드에서 동시에 기록할 수 있다.
+ */
+public final class QueryCountScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryCountScope> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> countBySql = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private QueryCountScope previous; // open() 한 쓰레드에서 close() 때 돌아갈 (바깥) scope
+
+    private QueryCountScope() {
+    }
+
+    // 현재 쓰레드에 걸지 않고 만든다. (bind() 로 건다)
+    public static QueryCountScope create() {
+        return new QueryCountScope();
+    }
+
+    public static QueryCountScope open() {
+        QueryCountScope scope = new QueryCountScope();
+        scope.previous = CURRENT.get();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static QueryCountScope current() {
+        return CURRENT.get();
+    }
+
+    // 현재 쓰레드에 이 scope 를 건다, 닫으면 원래 scope 로 돌아간다.
+    public Binding bind() {
+        QueryCountScope bound = CURRENT.get();
+        CURRENT.set(this);
+        return () -> restore(bound);
+    }
+
+    // 호출한 쓰레드의 scope 를 잡아 두었다가 task 를 실행하는 쓰레드에 다시 건다.
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        QueryCountScope captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Binding ignored = captured.bind()) {
+                return task.get();
+            }
+        };
+    }
+
+    void record(String sql) {
+        total.incrementAndGet();
+        countBySql.merge(sql, 1, Integer::sum);
+        if (previous != null) {
+            previous.record(sql);
+        }
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    // 같은 select 가 threshold 번 이상 실행된 경우 (지연 로딩 N+1 의심)
+    public Map<String, Integer> repeatedSelects(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        countBySql.forEach((sql, count) -> {
+            if (count >= threshold && sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+
+    @Override
+    public void close() {
+        restore(previous);
+    }
+
+    private static void restore(QueryCountScope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.querycount;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+@Slf4j
+@Component
+public class QueryGuard {
+
+    @Getter
+    private final QueryGuardMode mode;
+    private final int threshold;
+
+    public QueryGuard(@Value("${member.query-guard.mode:LOG}") QueryGuardMode mode,
+                      @Value("${member.query-guard.threshold:5}") int threshold) {
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    // FAIL 이면 예외, 응답이 커밋되기 전(QueryCountAdvice) 이나 트랜잭션 커밋 전에 불러야 요청이 실패한다.
+    public void check(QueryCountScope scope, String name) {
+        String message = message(scope, name);
+        if (message == null) {
+            return;
+        }
+        if (mode == QueryGuardMode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    // 이미 응답이 나간 뒤라 실패시킬 수 없는 경우 (StreamingResponseBody 등), FAIL 이어도 로그만 남긴다.
+    public void report(QueryCountScope scope, String name) {
+        String message = message(scope, name);
+        if (message != null) {
+            log.warn(message);
+        }
+    }
+
+    /**
+     * 현재 트랜잭션 동안 실행된 SQL 을 세고 커밋 직전에 check() 한다. (요청 밖의 배치 / 스케줄 작업용)
+     * - FAIL 이면 beforeCommit 에서 던진 예외로 트랜잭션이 롤백된다.
+     * - scope 는 트랜잭션이 끝나면(afterCompletion) 닫히고, 바깥 scope(요청 등)에도 같이 기록된다.
+     */
+    public QueryCountScope checkTransaction(String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("트랜잭션 안에서 호출해야 합니다: " + name);
+        }
+        QueryCountScope scope = QueryCountScope.open();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                check(scope, name);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                scope.close();
+            }
+        });
+        return scope;
+    }
+
+    private String message(QueryCountScope scope, String name) {
+        if (mode == QueryGuardMode.OFF) {
+            return null;
+        }
+        Map<String, Integer> repeated = scope.repeatedSelects(threshold);
+        if (repeated.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder message = new StringBuilder()
+                .append("N+1 의심 [").append(name).append("] 전체 쿼리 ").append(scope.getTotal()).append("건");
+        repeated.forEach((sql, count) -> message.append("\n  ").append(count).append("회: ").append(sql));
+        message.append("\n  -> fetch join(.fetchJoin()) 또는 batch fetch 를 적용하세요.");
+        return message.toString();
+    }
+}
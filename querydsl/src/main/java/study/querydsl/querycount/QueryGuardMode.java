@@ -0,0 +1,7 @@
+package study.querydsl.querycount;
+
+public enum QueryGuardMode {
+    OFF,
+    LOG,  // N+1 의심 시 warn 로그
+    FAIL  // N+1 의심 시 예외, 응답 / 트랜잭션 커밋 전에 확인한다 (QueryCountAdvice, QueryGuard.checkTransaction)
+}
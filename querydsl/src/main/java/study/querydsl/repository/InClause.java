@@ -0,0 +1,43 @@
+package study.querydsl.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * IN 절 파라미터 패딩 / 분할
+ * - in (?, ?, ?) 는 값 개수마다 SQL 이 달라져서 hibernate plan cache, JDBC prepared statement 캐시가 계속 늘어난다.
+ * - 개수를 2의 거듭제곱(1, 2, 4, 8 ...)으로 맞추면 SQL 모양이 log2(n) 가지로 줄어든다. 빈 자리는 마지막 값을 반복.
+ * - MAX_SIZE 를 넘으면 여러 쿼리로 나눠서 조회하고 결과를 합친다.
+ */
+public final class InClause {
+
+    public static final int MAX_SIZE = 512;
+
+    private InClause() {
+    }
+
+    public static <T> List<T> pad(Collection<T> values) {
+        List<T> padded = new ArrayList<>(new LinkedHashSet<>(values)); // 중복 제거
+        if (padded.isEmpty()) {
+            return padded;
+        }
+        int bucket = Integer.highestOneBit(padded.size() - 1) << 1;
+        T last = padded.get(padded.size() - 1);
+        while (padded.size() < Math.max(bucket, 1)) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    // 중복 제거 후 MAX_SIZE 단위로 나누고 각각 패딩
+    public static <T> List<List<T>> paddedChunks(Collection<T> values) {
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_SIZE) {
+            chunks.add(pad(distinct.subList(from, Math.min(from + MAX_SIZE, distinct.size()))));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+/**
+ * 정렬할 수 없는 요청 (whitelist 밖의 속성, 인덱스 없는 정렬의 깊은 offset, 여러 shard 에 걸친 문자열 정렬)
+ * - 요청 값의 문제이므로 MemberController 에서 400 으로 응답한다.
+ */
+public class InvalidSortException extends IllegalArgumentException {
+
+    public InvalidSortException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.querycount.QueryCountScope;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * MemberRepositoryCustom 의 CompletableFuture 버전
+ * - 쿼리는 QueryExecutors 쓰레드에서 실행되고, 요청 쓰레드(tomcat)는 바로 반환된다.
+ * - 트랜잭션 밖에서 실행되므로 쿼리마다 별도 EntityManager / 커넥션을 쓴다.
+ * - 요청 쓰레드의 QueryCountScope 를 쿼리 쓰레드에 넘겨서 요청 단위 쿼리 수에 포함시킨다.
+ * - searchPageComplex 는 content / count 쿼리를 각각 다른 쓰레드에서 동시에 실행한다.
+ *   content 로 total 을 알 수 있으면(PageableExecutionUtils 규칙) count 를 기다리지 않는다. (아직 시작 전이면 취소)
+ * - 같은 조건 / 페이지로 동시에 들어온 요청은 MemberSearchCoalescer 로 한번만 실행한다. (searchAfter 제외)
+ */
+@Component
+public class MemberAsyncRepository implements DisposableBean {
+
+    private final MemberRepository memberRepository;
+    private final MemberSearchCoalescer coalescer;
+    private final ExecutorService executor;
+
+    public MemberAsyncRepository(MemberRepository memberRepository,
+                                 MemberSearchCoalescer coalescer,
+                                 @Value("${member.async.pool-size:20}") int poolSize,
+                                 @Value("${member.async.queue-size:1000}") int queueSize) {
+        this.memberRepository = memberRepository;
+        this.coalescer = coalescer;
+        this.executor = QueryExecutors.create(poolSize, queueSize);
+    }
+
+    public CompletableFuture<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        return coalescer.coalesce("search", condition, Pageable.unpaged(), () ->
+                submit(() -> memberRepository.search(condition)));
+    }
+
+    public CompletableFuture<Page<MemberTeamDto>> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return coalescer.coalesce("searchPageSimple", condition, pageable, () ->
+                submit(() -> memberRepository.searchPageSimple(condition, pageable)));
+    }
+
+    public CompletableFuture<Page<MemberTeamDto>> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return coalescer.coalesce("searchPageComplex", condition, pageable, () -> {
+            CompletableFuture<List<MemberTeamDto>> content = submit(() -> memberRepository.searchContent(condition, pageable));
+            CompletableFuture<Long> count = submit(() -> memberRepository.searchCount(condition));
+            return content.thenCompose(rows -> {
+                if (totalFromContent(rows, pageable)) {
+                    count.cancel(false);
+                    return CompletableFuture.completedFuture(PageableExecutionUtils.getPage(rows, pageable, () -> rows.size()));
+                }
+                // count 를 알 수 없으면(MemberCountCache.UNKNOWN) 이 페이지까지의 하한
+                return count.thenApply(total -> PageableExecutionUtils.getPage(rows, pageable, () ->
+                        MemberCountCache.orLowerBound(total, pageable.getOffset(), rows.size(), pageable.getPageSize())));
+            });
+        });
+    }
+
+    // PageableExecutionUtils.getPage 가 count 없이 total 을 정하는 경우 (첫 페이지가 덜 찼거나, 마지막 페이지)
+    static boolean totalFromContent(List<?> content, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return true;
+        }
+        if (pageable.getOffset() == 0) {
+            return content.size() < pageable.getPageSize();
+        }
+        return !content.isEmpty() && content.size() < pageable.getPageSize();
+    }
+
+    public CompletableFuture<Slice<MemberTeamDto>> searchAfter(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        return submit(() -> memberRepository.searchAfter(condition, cursor, size));
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(QueryCountScope.propagate(query), executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
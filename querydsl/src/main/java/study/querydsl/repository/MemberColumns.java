@@ -0,0 +1,240 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberMemoryIndex 의 스냅샷 (불변, 컬럼 단위 배열)
+ * - slot 순서 == member id 오름차순
+ * - age      : int[] + (age, id) 순으로 정렬된 slot 배열, 범위 조건은 이분 탐색
+ * - team     : 사전 인코딩(team 마다 code 하나), teamName 조건은 int[] code 컬럼 스캔
+ * - username : hash (slot 목록)
+ * - 문자열 비교는 MySQL 기본 collation(대소문자 무시)에 맞춰 소문자로 한다.
+ */
+final class MemberColumns {
+
+    static final MemberColumns EMPTY = build(new TreeMap<>(), Map.of());
+
+    private static final int[] NO_SLOTS = new int[0];
+    private static final int NO_TEAM = -1;
+
+    private final long[] ids;
+    private final String[] usernames;
+    private final int[] ages;
+    private final int[] teamCodes;
+    private final long[] teamIdByCode;
+    private final String[] teamNameByCode;
+    private final Map<String, int[]> teamCodesByName;
+    private final int[] slotsByAge;
+    private final int[] sortedAges;
+    private final Map<String, int[]> slotsByUsername;
+
+    private MemberColumns(long[] ids, String[] usernames, int[] ages, int[] teamCodes,
+                          long[] teamIdByCode, String[] teamNameByCode, Map<String, int[]> teamCodesByName,
+                          int[] slotsByAge, int[] sortedAges, Map<String, int[]> slotsByUsername) {
+        this.ids = ids;
+        this.usernames = usernames;
+        this.ages = ages;
+        this.teamCodes = teamCodes;
+        this.teamIdByCode = teamIdByCode;
+        this.teamNameByCode = teamNameByCode;
+        this.teamCodesByName = teamCodesByName;
+        this.slotsByAge = slotsByAge;
+        this.sortedAges = sortedAges;
+        this.slotsByUsername = slotsByUsername;
+    }
+
+    static MemberColumns build(SortedMap<Long, MemberMemoryIndex.Row> members, Map<Long, String> teamNames) {
+        int size = members.size();
+        long[] ids = new long[size];
+        String[] usernames = new String[size];
+        int[] ages = new int[size];
+        int[] teamCodes = new int[size];
+        Map<Long, Integer> codeByTeamId = new HashMap<>();
+        List<Long> teamIds = new ArrayList<>();
+        Map<String, List<Integer>> usernameSlots = new HashMap<>();
+
+        int slot = 0;
+        for (Map.Entry<Long, MemberMemoryIndex.Row> entry : members.entrySet()) {
+            MemberMemoryIndex.Row row = entry.getValue();
+            ids[slot] = entry.getKey();
+            usernames[slot] = row.getUsername();
+            ages[slot] = row.getAge();
+            if (row.getTeamId() == null) {
+                teamCodes[slot] = NO_TEAM;
+            } else {
+                teamCodes[slot] = codeByTeamId.computeIfAbsent(row.getTeamId(), teamId -> {
+                    teamIds.add(teamId);
+                    return teamIds.size() - 1;
+                });
+            }
+            if (row.getUsername() != null) {
+                usernameSlots.computeIfAbsent(key(row.getUsername()), k -> new ArrayList<>()).add(slot);
+            }
+            slot++;
+        }
+
+        long[] teamIdByCode = new long[teamIds.size()];
+        String[] teamNameByCode = new String[teamIds.size()];
+        Map<String, List<Integer>> teamNameCodes = new HashMap<>();
+        for (int code = 0; code < teamIds.size(); code++) {
+            teamIdByCode[code] = teamIds.get(code);
+            teamNameByCode[code] = teamNames.get(teamIds.get(code));
+            if (teamNameByCode[code] != null) {
+                teamNameCodes.computeIfAbsent(key(teamNameByCode[code]), k -> new ArrayList<>()).add(code);
+            }
+        }
+
+        // (age, slot) 를 long 하나로 묶어 정렬 -> 박싱 없이 age, id 순
+        long[] ageKeys = new long[size];
+        for (int i = 0; i < size; i++) {
+            ageKeys[i] = ((long) ages[i] << 32) | i;
+        }
+        Arrays.sort(ageKeys);
+        int[] slotsByAge = new int[size];
+        int[] sortedAges = new int[size];
+        for (int i = 0; i < size; i++) {
+            slotsByAge[i] = (int) ageKeys[i];
+            sortedAges[i] = ages[slotsByAge[i]];
+        }
+
+        return new MemberColumns(ids, usernames, ages, teamCodes, teamIdByCode, teamNameByCode,
+                toArrays(teamNameCodes), slotsByAge, sortedAges, toArrays(usernameSlots));
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    // 조건에 맞는 slot (id 순)
+    int[] match(MemberSearchCondition condition) {
+        String username = hasText(condition.getUsername()) ? key(condition.getUsername()) : null;
+        int[] teamCodes = null;
+        if (hasText(condition.getTeamName())) {
+            teamCodes = teamCodesByName.get(key(condition.getTeamName()));
+            if (teamCodes == null) {
+                return NO_SLOTS;
+            }
+        }
+        int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+        int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+        if (ageGoe > ageLoe) {
+            return NO_SLOTS;
+        }
+
+        // 후보: username hash -> age 범위 -> 전체 순으로 좁은 쪽에서 시작
+        int[] candidates;
+        if (username != null) {
+            candidates = slotsByUsername.getOrDefault(username, NO_SLOTS);
+        } else if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int from = lowerBound(sortedAges, ageGoe);
+            int to = ageLoe == Integer.MAX_VALUE ? sortedAges.length : lowerBound(sortedAges, ageLoe + 1);
+            candidates = Arrays.copyOfRange(slotsByAge, from, to);
+            Arrays.sort(candidates);
+        } else {
+            candidates = null;
+        }
+
+        int count = candidates == null ? ids.length : candidates.length;
+        int[] matched = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = candidates == null ? i : candidates[i];
+            int age = ages[slot];
+            if (age < ageGoe || age > ageLoe) {
+                continue;
+            }
+            if (teamCodes != null && !contains(teamCodes, this.teamCodes[slot])) {
+                continue;
+            }
+            matched[size++] = slot;
+        }
+        return size == count ? matched : Arrays.copyOf(matched, size);
+    }
+
+    long id(int slot) {
+        return ids[slot];
+    }
+
+    List<MemberTeamDto> toDto(int[] slots, long offset, int limit) {
+        int from = (int) Math.min(offset, slots.length);
+        int to = (int) Math.min((long) from + limit, slots.length);
+        List<MemberTeamDto> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(toDto(slots[i]));
+        }
+        return result;
+    }
+
+    MemberTeamDto toDto(int slot) {
+        int code = teamCodes[slot];
+        return new MemberTeamDto(
+                ids[slot],
+                usernames[slot],
+                ages[slot],
+                code == NO_TEAM ? null : teamIdByCode[code],
+                code == NO_TEAM ? null : teamNameByCode[code]);
+    }
+
+    // 스냅샷 밖의 row (MemberMemoryIndex delta) 를 match() 와 같은 규칙으로 비교
+    static boolean matches(MemberMemoryIndex.Row row, String teamName, MemberSearchCondition condition) {
+        if (hasText(condition.getUsername())
+                && (row.getUsername() == null || !key(row.getUsername()).equals(key(condition.getUsername())))) {
+            return false;
+        }
+        if (hasText(condition.getTeamName())
+                && (teamName == null || !key(teamName).equals(key(condition.getTeamName())))) {
+            return false;
+        }
+        if (condition.getAgeGoe() != null && row.getAge() < condition.getAgeGoe()) {
+            return false;
+        }
+        return condition.getAgeLoe() == null || row.getAge() <= condition.getAgeLoe();
+    }
+
+    private static int lowerBound(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists) {
+        Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            arrays.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return arrays;
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.StringExpression;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QMemberSearchView;
+import study.querydsl.entity.QTeam;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.SMemberSearchView;
+import study.querydsl.sql.STeam;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition -> where 조건
+ * - 조건은 여기에만 적고, 쿼리마다 컬럼 경로(username, team name, age)만 바꿔 끼운다.
+ * - querydsl 의 조건식은 JPA / SQL 모듈이 같은 타입이라 만든 BooleanExpression 을 어느 쪽 where 에도 넣을 수 있다.
+ * - null 을 돌려주면 where 에서 무시된다.
+ */
+public final class MemberConditions {
+
+    // JPQL: member 만 from 에 두는 쿼리 (count 등), teamName 조건이 있을 때만 member.team 으로 암묵 join 된다.
+    public static final MemberConditions JPA =
+            new MemberConditions(QMember.member.username, QMember.member.team.name, QMember.member.age);
+
+    // JPQL: member left join member.team team, 이미 join 한 team 을 쓴다. (JPA 를 쓰면 team 을 한번 더 join 한다)
+    public static final MemberConditions JPA_JOIN =
+            new MemberConditions(QMember.member.username, QTeam.team.name, QMember.member.age);
+
+    // JPQL: member_search_view (member.read-model: VIEW)
+    public static final MemberConditions VIEW = new MemberConditions(
+            QMemberSearchView.memberSearchView.username,
+            QMemberSearchView.memberSearchView.teamName,
+            QMemberSearchView.memberSearchView.age);
+
+    // querydsl-sql: member left join team (MemberSqlRepository)
+    public static final MemberConditions SQL =
+            new MemberConditions(SMember.member.username, STeam.team.name, SMember.member.age);
+
+    // querydsl-sql: member_search_view (count budget 초과 시 근사 count)
+    public static final MemberConditions SQL_VIEW = new MemberConditions(
+            SMemberSearchView.memberSearchView.username,
+            SMemberSearchView.memberSearchView.teamName,
+            SMemberSearchView.memberSearchView.age);
+
+    private final StringExpression username;
+    private final StringExpression teamName;
+    private final NumberExpression<Integer> age;
+
+    private MemberConditions(StringExpression username, StringExpression teamName, NumberExpression<Integer> age) {
+        this.username = username;
+        this.teamName = teamName;
+        this.age = age;
+    }
+
+    public BooleanExpression[] of(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    public BooleanExpression usernameEq(String username) {
+        return hasText(username) ? this.username.eq(username) : null;
+    }
+
+    public BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? this.teamName.eq(teamName) : null;
+    }
+
+    public BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? age.goe(ageGoe) : null;
+    }
+
+    public BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,156 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.QueryTimeoutException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * searchPageComplex 의 count 결과 캐시
+ * - 같은 검색조건으로 페이지만 넘기는 경우 count 쿼리를 매번 다시 날리지 않는다.
+ * - key 는 정규화한 MemberSearchCondition (빈 문자열 == null)
+ * - ttl 이 지나거나 max-size 를 넘으면(가장 오래 안 쓴 것부터) 제거된다.
+ * - 벌크 update/delete 후에는 invalidateAll() 로 비운다.
+ * - budget-ms 를 넘은 count 는 approximate-cap 까지만 센 근사값으로 대신하고, 근사값은 캐시하지 않는다.
+ *   근사 count 에도 남은 budget 만큼 timeout 을 걸고, 그것도 넘으면 UNKNOWN 을 돌려준다.
+ * - invalidateAll() 전에 시작한 count 는 끝나도 캐시하지 않는다. (generation 비교)
+ */
+@Component
+public class MemberCountCache {
+
+    public static final long UNKNOWN = -1; // 정확한 count, 근사 count 모두 timeout
+
+    private final long ttlMillis;
+    private final int maxSize;
+
+    @Getter private final long budgetMillis;   // 0 이면 정확한 count 만 사용
+    @Getter private final int approximateCap;  // budget 초과 시 최대 이 개수까지만 센다
+
+    private final Map<MemberSearchCondition, Entry> cache;
+    private long generation; // invalidateAll() 마다 증가 (cache lock)
+
+    public MemberCountCache(@Value("${member.count-cache.ttl-ms:30000}") long ttlMillis,
+                            @Value("${member.count-cache.max-size:1000}") int maxSize,
+                            @Value("${member.count-cache.budget-ms:0}") long budgetMillis,
+                            @Value("${member.count-cache.approximate-cap:10000}") int approximateCap) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.budgetMillis = budgetMillis;
+        this.approximateCap = approximateCap;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemberSearchCondition, Entry> eldest) {
+                return size() > MemberCountCache.this.maxSize;
+            }
+        };
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier counter) {
+        return get(condition, counter, null);
+    }
+
+    /**
+     * @param approximateCounter counter 가 timeout(QueryTimeoutException) 으로 실패하면 대신 호출, null 이면 예외를 그대로 던진다.
+     *                           인자는 걸어야 할 timeout(초), 이것도 timeout 이면 UNKNOWN
+     */
+    public long get(MemberSearchCondition condition, LongSupplier counter, IntToLongFunction approximateCounter) {
+        MemberSearchCondition key = normalize(condition);
+        long now = System.currentTimeMillis();
+        long startGeneration;
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null && entry.expireAt > now) {
+                return entry.total;
+            }
+            startGeneration = generation;
+        }
+
+        // count 쿼리는 lock 밖에서 실행 (동시에 같은 key 가 들어오면 둘 다 실행될 수 있음)
+        long total;
+        try {
+            total = counter.getAsLong();
+        } catch (QueryTimeoutException e) {
+            if (approximateCounter == null) {
+                throw e;
+            }
+            return approximate(approximateCounter, now); // 정확한 total 이 아니므로 캐시하지 않음
+        }
+        synchronized (cache) {
+            if (generation == startGeneration) { // 그 사이 벌크 연산으로 비워졌으면 이전 값일 수 있다.
+                cache.put(key, new Entry(total, now + ttlMillis));
+            }
+        }
+        return total;
+    }
+
+    // 남은 budget (최소 1초, JDBC timeout 은 초 단위이고 0 이면 timeout 이 없다)
+    private long approximate(IntToLongFunction approximateCounter, long startedAt) {
+        long remainingMillis = budgetMillis - (System.currentTimeMillis() - startedAt);
+        try {
+            return approximateCounter.applyAsLong(Math.max(1, toTimeoutSeconds(remainingMillis)));
+        } catch (QueryTimeoutException | org.springframework.dao.QueryTimeoutException e) {
+            return UNKNOWN;
+        }
+    }
+
+    // UNKNOWN 이면 이 페이지까지는 있다는 하한 (꽉 찬 페이지면 다음 페이지가 있다고 본다)
+    public static long orLowerBound(long total, long offset, int contentSize, int pageSize) {
+        if (total != UNKNOWN) {
+            return total;
+        }
+        return offset + contentSize + (contentSize == pageSize ? 1 : 0);
+    }
+
+    /**
+     * count 쿼리에 걸 timeout (초, org.hibernate.timeout)
+     * - JDBC query timeout 은 초 단위라 budget-ms 를 초 단위로 올림 한다. (1ms -> 1초, 1001ms -> 2초)
+     * - 0 이면 timeout 없음
+     */
+    public int getBudgetSeconds() {
+        return toTimeoutSeconds(budgetMillis);
+    }
+
+    static int toTimeoutSeconds(long millis) {
+        return millis <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, (millis + 999) / 1000);
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition key = new MemberSearchCondition();
+        key.setUsername(hasText(condition.getUsername()) ? condition.getUsername() : null);
+        key.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        key.setAgeGoe(condition.getAgeGoe());
+        key.setAgeLoe(condition.getAgeLoe());
+        return key;
+    }
+
+    private static class Entry {
+        private final long total;
+        private final long expireAt;
+
+        private Entry(long total, long expireAt) {
+            this.total = total;
+            this.expireAt = expireAt;
+        }
+    }
+}
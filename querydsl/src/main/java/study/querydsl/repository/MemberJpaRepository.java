@@ -5,7 +5,10 @@ import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.datasource.ReadOnlyQuery;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
@@ -13,8 +16,11 @@ import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 
 import javax.persistence.EntityManager;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.springframework.util.StringUtils.hasText;
 import static org.springframework.util.StringUtils.replace;
@@ -24,6 +30,9 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 @RequiredArgsConstructor
 public class MemberJpaRepository {
+    private static final int STREAM_FETCH_SIZE = 1000; // 커서에서 한번에 가져올 row 수
+    private static final int CLEAR_INTERVAL = 1000;    // 영속성 컨텍스트 clear 주기
+
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
 
@@ -40,6 +49,7 @@ public class MemberJpaRepository {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
 
+    @ReadOnlyQuery
     public List<Member> findAll_Querydsl(){
         return queryFactory
                 .selectFrom(member)
@@ -52,6 +62,7 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    @ReadOnlyQuery
     public List<Member> findByUsername_Querydsl(String username){
         return queryFactory
                 .selectFrom(member)
@@ -59,6 +70,7 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    @ReadOnlyQuery
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
@@ -88,6 +100,7 @@ public class MemberJpaRepository {
 
     // 추천@@ / 위 Builder보단
     // 아래 쿼리가 재사용 가능하기에
+    @ReadOnlyQuery
     public List<MemberTeamDto> search(MemberSearchCondition condition){
         return queryFactory
                 .select(new QMemberTeamDto(
@@ -107,6 +120,44 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * search() 와 같은 조건이지만 결과를 List 로 모으지 않고 한 row 씩 action 에 넘긴다.
+     * - MySQL 은 url 에 useCursorFetch=true 가 있어야 fetch size 단위로 끊어 읽는다.
+     * - DTO 조회라 영속성 컨텍스트에 쌓이지는 않지만, 1차 캐시가 커지지 않도록 주기적으로 clear
+     * - stream 은 트랜잭션(커넥션)이 열려 있는 동안만 읽을 수 있다.
+     */
+    @Transactional(readOnly = true)
+    public void searchForEach(MemberSearchCondition condition, Consumer<MemberTeamDto> action) {
+        try (Stream<MemberTeamDto> stream = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .stream()) {
+            int count = 0;
+            Iterator<MemberTeamDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++count % CLEAR_INTERVAL == 0) {
+                    em.clear();
+                }
+            }
+        }
+    }
+
+    @ReadOnlyQuery
     public List<Member> searchMember(MemberSearchCondition condition){
         return queryFactory
                 .selectFrom(member)
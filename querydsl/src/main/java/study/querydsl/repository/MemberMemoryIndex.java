@@ -0,0 +1,404 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.Getter;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 메모리 검색 인덱스 (member.memory-index.enabled: true 일 때만)
+ * - search / searchContent / count 를 MySQL 없이 MemberColumns 스냅샷에서 처리한다.
+ * - 시작 시 전체를 읽고, 이후에는 member / team 이벤트를 모아 커밋이 성공한 뒤에 반영한다.
+ *   커밋마다 스냅샷을 다시 만들지 않고 바뀐 member 만 delta 에 모아 스냅샷 위에 겹쳐 읽는다.
+ *   delta 가 delta-threshold 를 넘거나 팀 이름이 바뀌면 스냅샷을 새로 만든다. (읽기는 lock 없음)
+ * - load() 중에 커밋된 변경은 모아 두었다가 읽은 결과 위에 다시 반영한다.
+ * - 이벤트가 없는 벌크 연산은 호출한 쪽에서 reload(id 목록) 한다.
+ * - 정렬 조건이 없는 JPA 쿼리와 달리 결과는 항상 member id 순이다.
+ */
+@Component
+public class MemberMemoryIndex implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int deltaThreshold;
+
+    private final TreeMap<Long, Row> members = new TreeMap<>();
+    private final Map<Long, String> teamNames = new HashMap<>();
+    private final Map<SharedSessionContractImplementor, Changes> pending = new ConcurrentHashMap<>();
+    private List<Changes> loading; // load() 중에 커밋된 변경 (members lock)
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public MemberMemoryIndex(EntityManagerFactory emf,
+                             JPAQueryFactory queryFactory,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${member.memory-index.enabled:false}") boolean enabled,
+                             @Value("${member.memory-index.delta-threshold:1000}") int deltaThreshold) {
+        this.emf = emf;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.deltaThreshold = deltaThreshold;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return snapshot.find(condition, 0, Integer.MAX_VALUE);
+    }
+
+    public List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable) {
+        return snapshot.find(condition, pageable.getOffset(), pageable.getPageSize());
+    }
+
+    public long count(MemberSearchCondition condition) {
+        return snapshot.count(condition);
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    // 스냅샷에 아직 합치지 않은 member 수
+    int deltaSize() {
+        return snapshot.delta.size();
+    }
+
+    @PostConstruct
+    void register() {
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        // 읽기 전에 켜야 읽는 도중 커밋된 변경을 놓치지 않는다. (이미 읽은 변경이 다시 반영되어도 결과는 같다)
+        synchronized (members) {
+            loading = new ArrayList<>();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Tuple> teams = queryFactory.select(team.id, team.name).from(team).fetch();
+                List<Tuple> rows = queryFactory
+                        .select(member.id, member.username, member.age, member.team.id)
+                        .from(member)
+                        .fetch();
+                synchronized (members) {
+                    members.clear();
+                    teamNames.clear();
+                    for (Tuple row : teams) {
+                        teamNames.put(row.get(team.id), row.get(team.name));
+                    }
+                    for (Tuple row : rows) {
+                        members.put(row.get(member.id),
+                                new Row(row.get(member.username), row.get(member.age), row.get(member.team.id)));
+                    }
+                }
+            });
+        } finally {
+            synchronized (members) {
+                for (Changes changes : loading) {
+                    merge(changes);
+                }
+                loading = null;
+                snapshot = rebuild();
+            }
+        }
+    }
+
+    /**
+     벌크 연산 후 해당 member 를 DB 에서 다시 읽어 커밋 후에 반영한다. (없어진 id 는 제거)
+     - 트랜잭션 밖에서 호출하면 바로 반영한다.
+     */
+    public void reload(Collection<Long> memberIds) {
+        if (!enabled || memberIds.isEmpty()) {
+            return;
+        }
+        Changes changes = new Changes();
+        for (Long memberId : memberIds) {
+            changes.members.put(memberId, null);
+        }
+        for (List<Long> chunk : InClause.paddedChunks(memberIds)) {
+            List<Tuple> rows = queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .where(member.id.in(chunk))
+                    .fetch();
+            for (Tuple row : rows) {
+                changes.members.put(row.get(member.id),
+                        new Row(row.get(member.username), row.get(member.age), row.get(member.team.id)));
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(changes);
+                }
+            });
+        } else {
+            apply(changes);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        collect(event.getSession(), event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        collect(event.getSession(), event.getEntity(), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        collect(event.getSession(), event.getEntity(), true);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void collect(EventSource session, Object entity, boolean deleted) {
+        if (entity instanceof Member) {
+            Member changed = (Member) entity;
+            changes(session).members.put(changed.getId(), deleted ? null : Row.of(changed));
+        } else if (entity instanceof Team && !deleted) {
+            Team changed = (Team) entity;
+            changes(session).teams.put(changed.getId(), changed.getName());
+        }
+    }
+
+    // 세션(트랜잭션)마다 하나, 커밋이 성공했을 때만 반영한다.
+    private Changes changes(EventSource session) {
+        Changes changes = pending.get(session);
+        if (changes == null) {
+            Changes created = new Changes();
+            pending.put(session, created);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+                pending.remove(s);
+                if (success) {
+                    apply(created);
+                }
+            });
+            changes = created;
+        }
+        return changes;
+    }
+
+    private void apply(Changes changes) {
+        synchronized (members) {
+            if (loading != null) {
+                loading.add(changes);
+                return;
+            }
+            boolean renamed = merge(changes);
+            Snapshot current = snapshot;
+            if (renamed || current.delta.size() + changes.members.size() > deltaThreshold) {
+                snapshot = rebuild();
+            } else {
+                snapshot = current.with(changes, teamNames, members.size());
+            }
+        }
+    }
+
+    // members / teamNames 에 반영, 이미 있던 팀 이름이 바뀌었으면 true
+    private boolean merge(Changes changes) {
+        boolean renamed = false;
+        for (Map.Entry<Long, String> entry : changes.teams.entrySet()) {
+            String previous = teamNames.put(entry.getKey(), entry.getValue());
+            renamed |= previous != null && !previous.equals(entry.getValue());
+        }
+        for (Map.Entry<Long, Row> entry : changes.members.entrySet()) {
+            if (entry.getValue() == null) {
+                members.remove(entry.getKey());
+            } else {
+                members.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return renamed;
+    }
+
+    private Snapshot rebuild() {
+        return new Snapshot(MemberColumns.build(members, teamNames), new TreeMap<>(),
+                Collections.unmodifiableMap(new HashMap<>(teamNames)), members.size());
+    }
+
+    /**
+     * 불변 스냅샷(base) + 그 이후 바뀐 member(delta)
+     * - delta 에 있는 id 는 base 에서 빼고, delta 쪽 row 를 id 순으로 끼워 넣는다.
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(MemberColumns.EMPTY, new TreeMap<>(), Map.of(), 0);
+
+        private final MemberColumns base;
+        private final TreeMap<Long, Row> delta; // null == 삭제
+        private final Map<Long, String> teamNames;
+        private final int size;
+
+        private Snapshot(MemberColumns base, TreeMap<Long, Row> delta, Map<Long, String> teamNames, int size) {
+            this.base = base;
+            this.delta = delta;
+            this.teamNames = teamNames;
+            this.size = size;
+        }
+
+        private Snapshot with(Changes changes, Map<Long, String> currentTeamNames, int size) {
+            TreeMap<Long, Row> merged = new TreeMap<>(delta);
+            merged.putAll(changes.members);
+            Map<Long, String> names = changes.teams.isEmpty()
+                    ? teamNames
+                    : Collections.unmodifiableMap(new HashMap<>(currentTeamNames));
+            return new Snapshot(base, merged, names, size);
+        }
+
+        private List<MemberTeamDto> find(MemberSearchCondition condition, long offset, int limit) {
+            int[] slots = base.match(condition);
+            if (delta.isEmpty()) {
+                return base.toDto(slots, offset, limit);
+            }
+            List<Map.Entry<Long, Row>> changed = changed(condition);
+            List<MemberTeamDto> result = new ArrayList<>();
+            long position = 0;
+            int i = 0;
+            int j = 0;
+            while (result.size() < limit && (i < slots.length || j < changed.size())) {
+                if (i < slots.length && delta.containsKey(base.id(slots[i]))) {
+                    i++;
+                    continue;
+                }
+                boolean fromBase = j == changed.size()
+                        || (i < slots.length && base.id(slots[i]) < changed.get(j).getKey());
+                if (position++ < offset) {
+                    if (fromBase) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                } else if (fromBase) {
+                    result.add(base.toDto(slots[i++]));
+                } else {
+                    Map.Entry<Long, Row> entry = changed.get(j++);
+                    Row row = entry.getValue();
+                    result.add(new MemberTeamDto(entry.getKey(), row.getUsername(), row.getAge(),
+                            row.getTeamId(), teamName(row)));
+                }
+            }
+            return result;
+        }
+
+        private long count(MemberSearchCondition condition) {
+            long count = changed(condition).size();
+            for (int slot : base.match(condition)) {
+                if (!delta.containsKey(base.id(slot))) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        // 조건에 맞는 delta row (id 순, 삭제 제외)
+        private List<Map.Entry<Long, Row>> changed(MemberSearchCondition condition) {
+            List<Map.Entry<Long, Row>> changed = new ArrayList<>();
+            for (Map.Entry<Long, Row> entry : delta.entrySet()) {
+                Row row = entry.getValue();
+                if (row != null && MemberColumns.matches(row, teamName(row), condition)) {
+                    changed.add(entry);
+                }
+            }
+            return changed;
+        }
+
+        private String teamName(Row row) {
+            return row.getTeamId() == null ? null : teamNames.get(row.getTeamId());
+        }
+    }
+
+    @Getter
+    static class Row {
+        private final String username;
+        private final int age;
+        private final Long teamId;
+
+        Row(String username, int age, Long teamId) {
+            this.username = username;
+            this.age = age;
+            this.teamId = teamId;
+        }
+
+        static Row of(Member member) {
+            Team team = member.getTeam();
+            if (team == null) {
+                return new Row(member.getUsername(), member.getAge(), null);
+            }
+            // 초기화되지 않은 프록시를 건드리지 않고 id 만 꺼낸다.
+            Long teamId = team instanceof HibernateProxy
+                    ? (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier()
+                    : team.getId();
+            return new Row(member.getUsername(), member.getAge(), teamId);
+        }
+    }
+
+    private static class Changes {
+        private final Map<Long, Row> members = new LinkedHashMap<>(); // null == 삭제
+        private final Map<Long, String> teams = new HashMap<>();
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.repository;
+
+/**
+ * 페이지 조회 시 content 와 total 을 가져오는 방식
+ */
+public enum MemberPageStrategy {
+    AUTO,   // member.page-strategy 설정값, auto 면 DB 가 window function 을 지원할 때(MySQL 8.0 이상) WINDOW
+    SPLIT,  // content 쿼리 + (필요할 때만) count 쿼리
+    WINDOW  // count(*) over() 로 content 와 total 을 쿼리 한번에
+}
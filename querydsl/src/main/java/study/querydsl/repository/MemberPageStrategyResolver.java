@@ -0,0 +1,59 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * AUTO 는 시작할 때 한번 DB 를 보고 정한다.
+ * - dialect 에는 항상 count_over 가 등록되어 있으므로(CustomMySQLDialect) 실제 DB 가 window function 을 지원하는지로 판단한다.
+ * - MySQL 8.0 이상이면 WINDOW, 그 외(MySQL 5.7 등)는 SPLIT
+ * - window function 을 쓰는 다른 조회(searchTopPerTeam)도 isWindowFunctionSupported() 로 확인한다.
+ */
+@Slf4j
+@Component
+public class MemberPageStrategyResolver {
+
+    private static final int WINDOW_FUNCTION_MYSQL_VERSION = 8;
+
+    private final boolean windowFunctionSupported;
+    private final MemberPageStrategy defaultStrategy;
+
+    public MemberPageStrategyResolver(@Value("${member.page-strategy:AUTO}") MemberPageStrategy configured,
+                                      DataSource dataSource) {
+        this.windowFunctionSupported = supportsWindowFunction(dataSource);
+        if (configured == MemberPageStrategy.AUTO) {
+            this.defaultStrategy = windowFunctionSupported ? MemberPageStrategy.WINDOW : MemberPageStrategy.SPLIT;
+            log.info("member.page-strategy AUTO -> {}", defaultStrategy);
+        } else {
+            this.defaultStrategy = configured;
+        }
+    }
+
+    static boolean supportsWindowFunction(String productName, int majorVersion) {
+        return "MySQL".equalsIgnoreCase(productName) && majorVersion >= WINDOW_FUNCTION_MYSQL_VERSION;
+    }
+
+    private static boolean supportsWindowFunction(DataSource dataSource) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, (DatabaseMetaData metaData) ->
+                    supportsWindowFunction(metaData.getDatabaseProductName(), metaData.getDatabaseMajorVersion()));
+        } catch (MetaDataAccessException e) {
+            log.warn("DB 버전을 확인할 수 없어 window function 을 쓰지 않습니다.", e);
+            return false;
+        }
+    }
+
+    public boolean isWindowFunctionSupported() {
+        return windowFunctionSupported;
+    }
+
+    public MemberPageStrategy resolve(MemberPageStrategy requested) {
+        return requested == null || requested == MemberPageStrategy.AUTO ? defaultStrategy : requested;
+    }
+}
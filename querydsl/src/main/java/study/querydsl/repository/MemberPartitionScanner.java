@@ -0,0 +1,211 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberStats;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member 전체 스캔(분석용)을 id 범위로 나눠서 병렬로 실행한다.
+ * - min(id) ~ max(id) 를 partitions 개 범위로 자르고, 범위마다 같은 querydsl 쿼리를 별도 트랜잭션(커넥션)에서 실행한다.
+ * - 동시에 실행되는 범위는 parallelism 개, 커넥션 풀(hikari maximum-pool-size) 보다 작게 잡는다.
+ * - 집계는 범위별 부분 결과를 합치고(MemberStats.plus), row 스캔은 범위마다 keyset 으로 끊어 읽는다.
+ */
+@Component
+public class MemberPartitionScanner implements DisposableBean {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int partitions;
+
+    public MemberPartitionScanner(JPAQueryFactory queryFactory,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${member.scan.parallelism:4}") int parallelism,
+                                  @Value("${member.scan.partitions:16}") int partitions) {
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.executor = QueryExecutors.fixed(parallelism, "member-scan-");
+        this.partitions = partitions;
+    }
+
+    // count, sum, avg, max, min(age)
+    public MemberStats aggregate(MemberSearchCondition condition) {
+        return scan(condition, range -> {
+            Tuple row = queryFactory
+                    .select(member.count(), member.age.sum(), member.age.max(), member.age.min())
+                    .from(member)
+                    .where(where(MemberConditions.JPA, condition, range))
+                    .fetchOne();
+            return stats(row);
+        }, MemberStats::plus, MemberStats.EMPTY);
+    }
+
+    // groupBy(team.name)
+    public Map<String, MemberStats> aggregateByTeam(MemberSearchCondition condition) {
+        return scan(condition, range -> {
+            List<Tuple> rows = queryFactory
+                    .select(team.name, member.count(), member.age.sum(), member.age.max(), member.age.min())
+                    .from(member)
+                    .join(member.team, team)
+                    .where(where(MemberConditions.JPA_JOIN, condition, range))
+                    .groupBy(team.name)
+                    .fetch();
+            Map<String, MemberStats> result = new HashMap<>();
+            for (Tuple row : rows) {
+                result.put(row.get(0, String.class), new MemberStats(
+                        row.get(1, Long.class),
+                        row.get(2, Number.class).longValue(),
+                        row.get(3, Integer.class),
+                        row.get(4, Integer.class)));
+            }
+            return result;
+        }, (left, right) -> {
+            Map<String, MemberStats> merged = new HashMap<>(left);
+            right.forEach((teamName, stats) -> merged.merge(teamName, stats, MemberStats::plus));
+            return merged;
+        }, Map.of());
+    }
+
+    /**
+     전체 row 를 병렬로 읽어 action 에 넘긴다. 읽은 건수를 반환한다.
+     - action 은 여러 쓰레드에서 동시에 호출되므로 thread-safe 해야 한다. (범위 안에서는 id 순)
+     */
+    public long forEach(MemberSearchCondition condition, Consumer<MemberTeamDto> action) {
+        return scan(condition, range -> {
+            long count = 0;
+            Long lastId = null;
+            while (true) {
+                List<MemberTeamDto> rows = queryFactory
+                        .select(new QMemberTeamDto(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(where(MemberConditions.JPA_JOIN, condition, range), lastId == null ? null : member.id.gt(lastId))
+                        .orderBy(member.id.asc())
+                        .limit(FETCH_SIZE)
+                        .fetch();
+                rows.forEach(action);
+                count += rows.size();
+                if (rows.size() < FETCH_SIZE) {
+                    return count;
+                }
+                lastId = rows.get(rows.size() - 1).getMemberId();
+            }
+        }, Long::sum, 0L);
+    }
+
+    private <R> R scan(MemberSearchCondition condition, PartitionQuery<R> query, BinaryOperator<R> merge, R empty) {
+        List<IdRange> ranges = split(condition);
+        List<CompletableFuture<R>> futures = new ArrayList<>(ranges.size());
+        for (IdRange range : ranges) {
+            futures.add(CompletableFuture.supplyAsync(inTransaction(() -> query.run(range)), executor));
+        }
+
+        R result = empty;
+        try {
+            for (CompletableFuture<R> future : futures) {
+                result = merge.apply(result, future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        return result;
+    }
+
+    private <R> Supplier<R> inTransaction(Supplier<R> supplier) {
+        return () -> transactionTemplate.execute(status -> supplier.get());
+    }
+
+    // [min(id), max(id)] 를 partitions 개 [from, to) 범위로
+    List<IdRange> split(MemberSearchCondition condition) {
+        Tuple bounds = transactionTemplate.execute(status -> queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where(MemberConditions.JPA, condition, null))
+                .fetchOne());
+        Long min = bounds == null ? null : bounds.get(member.id.min());
+        Long max = bounds == null ? null : bounds.get(member.id.max());
+        if (min == null || max == null) {
+            return List.of();
+        }
+
+        long span = max - min + 1;
+        long step = Math.max(1, (span + partitions - 1) / partitions);
+        List<IdRange> ranges = new ArrayList<>();
+        for (long from = min; from <= max; from += step) {
+            ranges.add(new IdRange(from, Math.min(from + step, max + 1)));
+        }
+        return ranges;
+    }
+
+    // 검색조건(MemberConditions, team 을 join 한 쿼리는 JPA_JOIN) + id 범위
+    private static BooleanExpression[] where(MemberConditions memberConditions, MemberSearchCondition condition, IdRange range) {
+        BooleanExpression[] conditions = memberConditions.of(condition);
+        BooleanExpression[] where = Arrays.copyOf(conditions, conditions.length + 1);
+        where[conditions.length] = range == null ? null : member.id.goe(range.from).and(member.id.lt(range.to));
+        return where;
+    }
+
+    private static MemberStats stats(Tuple row) {
+        if (row == null || row.get(0, Long.class) == 0) {
+            return MemberStats.EMPTY;
+        }
+        return new MemberStats(
+                row.get(0, Long.class),
+                row.get(1, Number.class).longValue(), // sum(int) 는 hibernate 에서 Long
+                row.get(2, Integer.class),
+                row.get(3, Integer.class));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface PartitionQuery<R> {
+        R run(IdRange range);
+    }
+
+    static class IdRange {
+        final long from; // 포함
+        final long to;   // 미포함
+
+        IdRange(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
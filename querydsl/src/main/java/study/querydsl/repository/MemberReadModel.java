@@ -0,0 +1,9 @@
+package study.querydsl.repository;
+
+/**
+ * MemberTeamDto 검색 시 읽는 곳 (member.read-model)
+ */
+public enum MemberReadModel {
+    JOIN, // member left join team
+    VIEW  // member_search_view (비정규화, join 없음)
+}
@@ -2,13 +2,25 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
-    Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
+    List<MemberTeamDto> searchByIds(Collection<Long> memberIds, MemberSearchCondition condition); // IN 절 패딩 / 분할
+    Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable); // 정렬은 MemberSort whitelist + member.id
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable); // count 와 분리
+    List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable); // searchPageComplex 의 content 쿼리
+    long searchCount(MemberSearchCondition condition); // searchPageComplex 의 count 쿼리 (count 캐시 사용, 알 수 없으면 MemberCountCache.UNKNOWN)
+    Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, MemberPageStrategy strategy);
+    Slice<MemberTeamDto> searchAfter(MemberSearchCondition condition, MemberCursor cursor, int size); // keyset(seek) 페이징
+    List<MemberTeamDto> searchTopPerTeam(MemberSearchCondition condition, int limitPerTeam, Sort.Direction ageDirection); // 팀별 나이순 상위 N 명 (row_number)
+    long bulkAddAge(MemberSearchCondition condition, int amount); // MemberBulkService 로 chunk 단위 처리
+    long bulkDelete(MemberSearchCondition condition);
 }
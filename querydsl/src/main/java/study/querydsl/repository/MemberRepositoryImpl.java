@@ -1,47 +1,91 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.datasource.ReadOnlyQuery;
+import study.querydsl.dialect.CustomMySQLDialect;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
+import study.querydsl.service.MemberBulkService;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberSearchView.memberSearchView;
 import static study.querydsl.entity.QTeam.team;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
+    // CustomMySQLDialect 에 등록된 count(*) over()
+    private static final NumberExpression<Long> TOTAL_COUNT =
+            Expressions.numberTemplate(Long.class, CustomMySQLDialect.COUNT_OVER + "()");
+
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberPageStrategyResolver pageStrategyResolver;
+    private final MemberSearchQueryCache searchQueryCache;
+    private final MemberSearchViewSync searchView;
+    private final MemberMemoryIndex memoryIndex;
+    private final MemberSqlRepository sqlRepository;
+    private final MemberSort memberSort;
+    private final MemberBulkService bulkService;
 
+    // 조건 모양별로 캐시된 JPQL 에 파라미터만 바인딩한다. (MemberSearchQueryCache)
     @Override
+    @ReadOnlyQuery
     public List<MemberTeamDto> search(MemberSearchCondition condition){
+        if (memoryIndex.isEnabled()) {
+            return memoryIndex.search(condition);
+        }
+        if (searchView.isEnabled()) {
+            return selectFromView(condition).fetch();
+        }
+        if (sqlRepository.isEnabled()) {
+            return sqlRepository.search(condition);
+        }
+        return searchQueryCache.search(condition);
+    }
+
+    /**
+     member.read-model: VIEW 이면 member join team 대신 member_search_view 에서 바로 조회한다.
+     (member.memory-index.enabled: true 면 메모리 인덱스가 우선)
+     - search / searchContent / count 에 사용 (WINDOW 페이지 전략도 이쪽으로 처리)
+     member.sql-backend.enabled: true 이면 (JOIN 일 때) 같은 조건을 querydsl-sql 로 조회한다. (MemberSqlRepository)
+     */
+    private JPAQuery<MemberTeamDto> selectFromView(MemberSearchCondition condition) {
         return queryFactory
                 .select(new QMemberTeamDto(
-                        member.id,
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                        memberSearchView.memberId,
+                        memberSearchView.username,
+                        memberSearchView.age,
+                        memberSearchView.teamId,
+                        memberSearchView.teamName))
+                .from(memberSearchView)
+                .where(viewCondition(condition));
+    }
+
+    private BooleanExpression[] viewCondition(MemberSearchCondition condition) {
+        return MemberConditions.VIEW.of(condition);
     }
 
     // BooleanExpression 통하여 조립이 가능하다.
@@ -49,31 +93,90 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return (ageGoe != null && ageLoe != null) ? ageGoe(ageGoe).and(ageLoe(ageLoe)) : null;
     }
 
+    // 패딩된 id 목록 (InClause.pad)
+    private BooleanExpression memberIdIn(List<Long> paddedIds) {
+        return paddedIds.isEmpty() ? null : member.id.in(paddedIds);
+    }
+
+    // 검색조건은 MemberConditions 에서 (view / querydsl-sql 과 공유), leftJoin(member.team, team) 한 쿼리용
     private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+        return MemberConditions.JPA_JOIN.usernameEq(username);
     }
 
     private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? member.team.name.eq(teamName) : null;
+        return MemberConditions.JPA_JOIN.teamNameEq(teamName);
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+        return MemberConditions.JPA_JOIN.ageGoe(ageGoe);
     }
 
     private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+        return MemberConditions.JPA_JOIN.ageLoe(ageLoe);
+    }
+
+    /**
+     id 목록 + 검색조건 조회
+     - IN 절은 2의 거듭제곱 개수로 패딩하고, InClause.MAX_SIZE 를 넘으면 나눠서 조회 후 id 순으로 합친다.
+     */
+    @Override
+    @ReadOnlyQuery
+    public List<MemberTeamDto> searchByIds(Collection<Long> memberIds, MemberSearchCondition condition) {
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (List<Long> chunk : InClause.paddedChunks(memberIds)) {
+            result.addAll(queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id,
+                            member.username,
+                            member.age,
+                            team.id,
+                            team.name))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(
+                            memberIdIn(chunk),
+                            usernameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe())
+                    )
+                    .fetch());
+        }
+        result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return result;
     }
 
     @Override
+    @ReadOnlyQuery
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id,
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name))
+        // fetchResults() 는 querydsl 5.0 부터 deprecated, 설정된 전략으로 조회한다.
+        return searchPage(condition, pageable, MemberPageStrategy.AUTO);
+    }
+
+    @Override
+    @ReadOnlyQuery
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, MemberPageStrategy strategy) {
+        if (pageStrategyResolver.resolve(strategy) == MemberPageStrategy.WINDOW
+                && !searchView.isEnabled() && !memoryIndex.isEnabled()) {
+            return searchPageWindow(condition, pageable);
+        }
+        return searchPageComplex(condition, pageable);
+    }
+
+    /**
+     count(*) over() 로 content 와 total 을 쿼리 한번에 가져온다.
+     - offset 이 전체 건수 이상이면 row 가 없어서 total 을 알 수 없으므로 그때만 count 쿼리
+     */
+    private Page<MemberTeamDto> searchPageWindow(MemberSearchCondition condition, Pageable pageable) {
+        QMemberTeamDto memberTeamDto = new QMemberTeamDto(
+                member.id,
+                member.username,
+                member.age,
+                team.id,
+                team.name);
+
+        List<Tuple> rows = queryFactory
+                .select(memberTeamDto, TOTAL_COUNT)
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
@@ -82,17 +185,57 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
-                .offset(pageable.getOffset()) //몇번째부터
-                .limit(pageable.getPageSize()) // 몇개
-                .fetchResults(); // fetch와 count 두개 모두가져올 수 있음
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
-        return new PageImpl<>(content, pageable, total);
+                .orderBy(memberSort.orderBy(pageable, MemberSort.JPA))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        List<MemberTeamDto> content = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            content.add(row.get(memberTeamDto));
+        }
+        if (rows.isEmpty()) {
+            return PageableExecutionUtils.getPage(content, pageable, () -> pageTotal(condition, pageable, content));
+        }
+        return new PageImpl<>(content, pageable, rows.get(0).get(TOTAL_COUNT));
     }
 
     @Override
+    @ReadOnlyQuery
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> results = queryFactory
+        List<MemberTeamDto> results = searchContent(condition, pageable);
+
+        /**
+         count 쿼리가 생략 가능한 경우 생략해서 처리,
+         - 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 경우
+         - 마지막 페이지일 때(offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
+         */
+        return PageableExecutionUtils.getPage(results, pageable, () -> pageTotal(condition, pageable, results));
+    }
+
+    // count 를 알 수 없으면(MemberCountCache.UNKNOWN) 이 페이지까지의 하한
+    private long pageTotal(MemberSearchCondition condition, Pageable pageable, List<MemberTeamDto> content) {
+        return MemberCountCache.orLowerBound(fetchTotal(condition), pageable.getOffset(), content.size(), pageable.getPageSize());
+    }
+
+    @Override
+    @ReadOnlyQuery
+    public List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable) {
+        // 메모리 인덱스는 id 순으로만 돌려주므로 다른 정렬은 DB 에서
+        if (memoryIndex.isEnabled() && MemberSort.isIdAscending(pageable.getSort())) {
+            return memoryIndex.searchContent(condition, pageable);
+        }
+        if (searchView.isEnabled()) {
+            return selectFromView(condition)
+                    .orderBy(memberSort.orderBy(pageable, MemberSort.VIEW))
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch();
+        }
+        if (sqlRepository.isEnabled()) {
+            return sqlRepository.searchContent(condition, pageable);
+        }
+        return queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -107,28 +250,153 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(memberSort.orderBy(pageable, MemberSort.JPA)) // pageable.getSort() + member.id
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch(); // fetch로 변경
+    }
+
+    @Override
+    @ReadOnlyQuery
+    public long searchCount(MemberSearchCondition condition) {
+        return fetchTotal(condition);
+    }
+
+    private long fetchTotal(MemberSearchCondition condition) {
+        if (memoryIndex.isEnabled()) {
+            return memoryIndex.count(condition); // 캐시할 필요 없음
+        }
+        if (sqlRepository.isEnabled() && !searchView.isEnabled()) {
+            return countCache.get(condition, () -> sqlRepository.count(condition)); // budget-ms 는 JPA 경로에만 적용
+        }
+        return countCache.get(condition, () -> countWithinBudget(countQuery(condition)),
+                timeoutSeconds -> approximateCount(condition, timeoutSeconds));
+    }
 
-        // total은 join을 할 필요없이 따기에, 따로 놓고 query를 select한다.
-        // countQuery.fetchCount(); 해야 쿼리가 날라간다.
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
+    // total은 join을 할 필요없이 따기에, 따로 놓고 query를 select한다.
+    // fetchCount() 는 deprecated 이므로 select 절에 count 를 직접 적는다.
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        if (searchView.isEnabled()) {
+            return queryFactory
+                    .select(memberSearchView.count())
+                    .from(memberSearchView)
+                    .where(viewCondition(condition));
+        }
+        // join 이 없으므로 teamName 은 member.team.name (조건이 있을 때만 team join)
+        return queryFactory
+                .select(member.count())
                 .from(member)
-//                .leftJoin(member.team, team)
+                .where(MemberConditions.JPA.of(condition));
+    }
+
+    /**
+     budget-ms 가 설정되어 있으면 count 쿼리에 timeout 을 건다.
+     - org.hibernate.timeout 은 초 단위 Integer, budget-ms 는 초 단위로 올림 된다. (MemberCountCache.getBudgetSeconds)
+       (javax.persistence.query.timeout 은 ms 를 반올림해서 500ms 미만이면 timeout 이 없어진다)
+     - 시간 안에 끝나지 않으면 QueryTimeoutException, MemberCountCache 가 approximateCount 로 대신한다.
+     */
+    private long countWithinBudget(JPAQuery<Long> countQuery) {
+        int timeoutSeconds = countCache.getBudgetSeconds();
+        if (timeoutSeconds <= 0) {
+            return countQuery.fetchOne();
+        }
+        return countQuery
+                .setHint(QueryHints.TIMEOUT_HIBERNATE, timeoutSeconds)
+                .fetchOne();
+    }
+
+    // approximate-cap 까지만 센 근사값, count(*) 를 limit 서브쿼리 위에서 (flush 되지 않은 변경은 보이지 않음)
+    private long approximateCount(MemberSearchCondition condition, int timeoutSeconds) {
+        if (searchView.isEnabled()) {
+            return sqlRepository.countViewUpTo(condition, countCache.getApproximateCap(), timeoutSeconds);
+        }
+        return sqlRepository.countUpTo(condition, countCache.getApproximateCap(), timeoutSeconds);
+    }
+
+    /**
+     팀별 나이순 상위 N 명 (ASC: 어린 순, DESC: 나이 많은 순)
+     - subQueryByWhere 처럼 상관 서브쿼리로 풀면 member row 마다 같은 팀에서 순위를 세는 서브쿼리가 실행된다.
+       window function(row_number) 으로 스캔 한번에 순위를 매긴다. (MemberSqlRepository, flush 되지 않은 변경은 보이지 않음)
+     - window function 이 없는 DB(MySQL 8.0 미만)에서는 IllegalStateException (MemberPageStrategyResolver 가 시작할 때 확인)
+     */
+    @Override
+    @ReadOnlyQuery
+    public List<MemberTeamDto> searchTopPerTeam(MemberSearchCondition condition, int limitPerTeam, Sort.Direction ageDirection) {
+        if (limitPerTeam < 1) {
+            throw new IllegalArgumentException("limitPerTeam 은 1 이상이어야 합니다. limitPerTeam=" + limitPerTeam);
+        }
+        if (!pageStrategyResolver.isWindowFunctionSupported()) {
+            throw new IllegalStateException("팀별 상위 N 명 조회는 window function(row_number) 이 필요합니다. MySQL 8.0 이상에서만 지원합니다.");
+        }
+        return sqlRepository.searchTopPerTeam(condition, limitPerTeam, ageDirection);
+    }
+
+    /**
+     벌크 연산은 MemberBulkService 로 처리한다. (id 순으로 chunk 마다 트랜잭션)
+     - 영속성 컨텍스트는 비우지 않고, 대상 Member 만 age 를 다시 맞추거나(update) detach(delete) 한다.
+     - count 캐시 / 재사용 중인 검색 결과 / member_search_view / 메모리 인덱스 반영도 MemberBulkService 에서 한다.
+     */
+    @Override
+    public long bulkAddAge(MemberSearchCondition condition, int amount) {
+        return bulkService.addAge(condition, amount);
+    }
+
+    @Override
+    public long bulkDelete(MemberSearchCondition condition) {
+        return bulkService.delete(condition);
+    }
+
+    /**
+     offset 페이징은 앞 페이지 row 를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+     마지막으로 읽은 (age, id) 이후부터 seek 하면 페이지 번호와 상관없이 index 범위 스캔만 한다.
+     - 다음 페이지 존재 여부는 size + 1 개를 조회해서 판단한다. (count 쿼리 없음)
+     */
+    @Override
+    @ReadOnlyQuery
+    public Slice<MemberTeamDto> searchAfter(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                        ageLoe(condition.getAgeLoe()),
+                        seekAfter(cursor)
+                )
+                .orderBy(keysetOrder(cursor))
+                .limit(size + 1)
+                .fetch();
 
-        /**
-         count 쿼리가 생략 가능한 경우 생략해서 처리,
-         - 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 경우
-         - 마지막 페이지일 때(offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
-         */
-        return PageableExecutionUtils.getPage(results, pageable, () -> countQuery.fetchCount());
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    private BooleanExpression seekAfter(MemberCursor cursor) {
+        if (cursor == null || cursor.isFirst()) {
+            return null;
+        }
+        if (cursor.getOrder() == MemberCursor.Order.AGE_ID) {
+            // (age, id) > (:age, :id)
+            return member.age.gt(cursor.getAge())
+                    .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+        }
+        return member.id.gt(cursor.getMemberId());
+    }
+
+    private OrderSpecifier<?>[] keysetOrder(MemberCursor cursor) {
+        if (cursor != null && cursor.getOrder() == MemberCursor.Order.AGE_ID) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
     }
 }
@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 같은 검색 동시 요청 합치기 (single-flight)
+ * - (메서드, 정규화한 MemberSearchCondition, Pageable) 이 같은 요청이 실행 중이면 새로 조회하지 않고 그 결과를 같이 받는다.
+ *   첫 페이지처럼 한꺼번에 몰리는 요청이 쿼리 한번으로 끝난다.
+ * - reuse-ms 가 0 보다 크면 성공한 결과를 그 시간 동안 재사용한다. (실패는 재사용하지 않음)
+ * - 벌크 update/delete 후에는 invalidateAll() 로 비운다. (이미 실행 중인 조회를 기다리는 요청은 그대로 받는다)
+ * - 요청마다 공유 future 의 copy() 를 돌려준다. 한 요청이 cancel / complete 해도 다른 요청과 공유 future 는 그대로다.
+ * - 결과 객체(Page, List)는 요청끼리 공유하므로 받은 쪽에서 수정하면 안 된다.
+ */
+@Component
+public class MemberSearchCoalescer {
+
+    private final boolean enabled;
+    private final long reuseMillis;
+
+    private final Map<List<Object>, CompletableFuture<?>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong sharedCount = new AtomicLong();
+    private final AtomicLong executedCount = new AtomicLong();
+
+    public MemberSearchCoalescer(@Value("${member.coalesce.enabled:true}") boolean enabled,
+                                 @Value("${member.coalesce.reuse-ms:0}") long reuseMillis) {
+        this.enabled = enabled;
+        this.reuseMillis = reuseMillis;
+    }
+
+    /**
+     * loader 는 같은 key 의 조회가 진행 중이지 않을 때만 호출된다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> coalesce(String method, MemberSearchCondition condition, Pageable pageable,
+                                             Supplier<CompletableFuture<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        List<Object> key = List.of(method, MemberCountCache.normalize(condition), pageable);
+
+        CompletableFuture<T> flight = new CompletableFuture<>();
+        CompletableFuture<?> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            sharedCount.incrementAndGet();
+            return ((CompletableFuture<T>) existing).copy();
+        }
+
+        executedCount.incrementAndGet();
+        CompletableFuture<T> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((result, ex) -> {
+            if (ex != null || reuseMillis <= 0) {
+                flights.remove(key, flight);
+            } else {
+                CompletableFuture.delayedExecutor(reuseMillis, TimeUnit.MILLISECONDS)
+                        .execute(() -> flights.remove(key, flight));
+            }
+            // 대기 중인 요청에 넘기기 전에 정리해야 실패 직후 재요청이 실패한 결과를 받지 않는다.
+            if (ex != null) {
+                flight.completeExceptionally(ex);
+            } else {
+                flight.complete(result);
+            }
+        });
+        return flight.copy();
+    }
+
+    public void invalidateAll() {
+        flights.clear();
+    }
+
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+}
@@ -0,0 +1,185 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPAProvider;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.metrics.QueryMetrics;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * search() 용 JPQL 캐시
+ * - MemberSearchCondition 은 조건 4개가 있다/없다 뿐이라 쿼리 모양은 2^4 = 16 가지 뿐이다.
+ * - 모양별로 querydsl 조립 + JPQL 직렬화를 한번만 하고, 이후에는 파라미터만 바인딩한다.
+ * - JPQL 문자열이 매번 같으므로 hibernate 의 query plan cache 도 항상 hit 된다.
+ * - teamName 조건이 있는 검색은 결과를 hibernate 쿼리 캐시(member-team-search)에 둔다.
+ *   member / team 테이블이 바뀌면(벌크 연산 포함) hibernate 가 무효화한다.
+ * - hit / miss 는 querydsl.search.query-cache (result=hit|miss) 로 남긴다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    public static final String TEAM_SEARCH_REGION = "member-team-search";
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private final EntityManager em;
+    private final QueryMetrics queryMetrics;
+    private final AtomicReferenceArray<PreparedQuery> prepared = new AtomicReferenceArray<>(16);
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public MemberSearchQueryCache(EntityManager em, QueryMetrics queryMetrics, MeterRegistry registry) {
+        this.em = em;
+        this.queryMetrics = queryMetrics;
+        FunctionCounter.builder("querydsl.search.query-cache", hitCount, AtomicLong::get)
+                .description("search() JPQL 캐시 조회 수")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("querydsl.search.query-cache", missCount, AtomicLong::get)
+                .description("search() JPQL 캐시 조회 수")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        int shape = shapeOf(condition);
+        PreparedQuery preparedQuery = prepared.get(shape);
+        if (preparedQuery == null) {
+            missCount.incrementAndGet();
+            preparedQuery = prepare(shape);
+            prepared.compareAndSet(shape, null, preparedQuery);
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        Map<Param<?>, Object> bindings = new HashMap<>();
+        bindings.put(USERNAME_PARAM, condition.getUsername());
+        bindings.put(TEAM_NAME_PARAM, condition.getTeamName());
+        bindings.put(AGE_GOE_PARAM, condition.getAgeGoe());
+        bindings.put(AGE_LOE_PARAM, condition.getAgeLoe());
+
+        long start = System.nanoTime();
+        List<MemberTeamDto> result = preparedQuery.execute(em, bindings);
+        // 직렬화는 캐시되어 있으므로 0
+        queryMetrics.record(queryMetrics.callSite(preparedQuery.jpql, () -> preparedQuery.shape, MemberSearchQueryCache.class),
+                System.nanoTime() - start, 0, result.size(), 0, preparedQuery.jpql, Collections.singletonList(condition));
+        return result;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    // MemberRepositoryImpl.search() 와 같은 쿼리, 값 대신 Param 으로 조립
+    private PreparedQuery prepare(int shape) {
+        JPAQuery<MemberTeamDto> query = new JPAQuery<>(em)
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        (shape & USERNAME) != 0 ? member.username.eq(USERNAME_PARAM) : null,
+                        (shape & TEAM_NAME) != 0 ? team.name.eq(TEAM_NAME_PARAM) : null,
+                        (shape & AGE_GOE) != 0 ? member.age.goe(AGE_GOE_PARAM) : null,
+                        (shape & AGE_LOE) != 0 ? member.age.loe(AGE_LOE_PARAM) : null
+                );
+
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new PreparedQuery(serializer.toString(), new ArrayList<>(serializer.getConstants()),
+                QueryMetrics.shapeOf(query.getMetadata().getWhere()), (shape & TEAM_NAME) != 0);
+    }
+
+    private static class PreparedQuery {
+        private final String jpql;
+        private final List<Object> constants; // ?1, ?2 ... 순서
+        private final String shape;
+        private final boolean cacheable;
+
+        private PreparedQuery(String jpql, List<Object> constants, String shape, boolean cacheable) {
+            this.jpql = jpql;
+            this.constants = constants;
+            this.shape = shape;
+            this.cacheable = cacheable;
+        }
+
+        private List<MemberTeamDto> execute(EntityManager em, Map<Param<?>, Object> bindings) {
+            Query query = em.createQuery(jpql);
+            for (int i = 0; i < constants.size(); i++) {
+                Object constant = constants.get(i);
+                query.setParameter(i + 1, constant instanceof Param ? bindings.get(constant) : constant);
+            }
+            if (cacheable) {
+                query.setHint(QueryHints.HINT_CACHEABLE, true);
+                query.setHint(QueryHints.HINT_CACHE_REGION, TEAM_SEARCH_REGION);
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = query.getResultList();
+            List<MemberTeamDto> result = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                result.add(new MemberTeamDto(
+                        (Long) row[0],
+                        (String) row[1],
+                        (Integer) row[2],
+                        (Long) row[3],
+                        (String) row[4]));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package study.querydsl.repository;
+
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * member_search_view 동기화 (member.read-model: VIEW 일 때만)
+ * - member insert / update / delete, team update 이벤트에서 바뀐 id 만 모아두고
+ *   트랜잭션 커밋 직전(마지막 flush 이후)에 같은 커넥션으로 한번에 반영한다.
+ * - member 는 id 별로 delete 후 member join team 에서 다시 insert 한다. (삭제된 member 는 insert 되지 않음)
+ * - team 은 이름만 다시 읽는다. (team.changeName)
+ * - 이벤트가 없는 벌크 연산은 호출한 쪽에서 refresh() 하거나 view 에도 같은 벌크 연산을 한다.
+ * - 시작할 때는 view 가 비어 있거나 member.search-view.rebuild: true 일 때만 전체를 다시 채운다.
+ *   (인스턴스마다 전체 delete + insert 를 한 트랜잭션으로 하지 않도록 member_id 범위 chunk 로 나눈다)
+ */
+@Component
+public class MemberSearchViewSync implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String DELETE_MEMBER = "delete from member_search_view where member_id = ?";
+    private static final String INSERT_MEMBER =
+            "insert into member_search_view (member_id, username, age, team_id, team_name)" +
+            " select m.member_id, m.username, m.age, m.team_id, t.name" +
+            " from member m left join team t on t.team_id = m.team_id" +
+            " where m.member_id = ?";
+    private static final String DELETE_MEMBER_RANGE = "delete from member_search_view where member_id between ? and ?";
+    private static final String INSERT_MEMBER_RANGE =
+            "insert into member_search_view (member_id, username, age, team_id, team_name)" +
+            " select m.member_id, m.username, m.age, m.team_id, t.name" +
+            " from member m left join team t on t.team_id = m.team_id" +
+            " where m.member_id between ? and ?";
+    private static final String UPDATE_TEAM_NAME =
+            "update member_search_view set team_name = (select t.name from team t where t.team_id = ?) where team_id = ?";
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean rebuildOnStart;
+    private final int chunkSize;
+    private final Map<SessionImplementor, Changes> pending = new ConcurrentHashMap<>();
+
+    public MemberSearchViewSync(EntityManagerFactory emf,
+                                EntityManager em,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${member.read-model:JOIN}") MemberReadModel readModel,
+                                @Value("${member.search-view.rebuild:false}") boolean rebuildOnStart,
+                                @Value("${member.search-view.chunk-size:10000}") int chunkSize) {
+        this.emf = emf;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = readModel == MemberReadModel.VIEW;
+        this.rebuildOnStart = rebuildOnStart;
+        this.chunkSize = chunkSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void register() {
+        if (!enabled) {
+            return;
+        }
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    // 리스너 등록 전에 들어간 데이터(InitMember 등)나 ddl-auto: none 으로 남아있던 데이터를 다시 채운다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        if (!enabled) {
+            return;
+        }
+        if (rebuildOnStart || isEmpty()) {
+            rebuild();
+        }
+    }
+
+    /**
+     view 전체를 member 에서 다시 채운다. member_id 범위(chunk-size) 마다 트랜잭션 하나
+     - 범위 밖(삭제된 member)의 view row 는 먼저 지운다.
+     */
+    public void rebuild() {
+        long[] range = transactionTemplate.execute(status -> em.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("select min(member_id), max(member_id) from member")) {
+                rs.next();
+                long min = rs.getLong(1);
+                return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+            }
+        }));
+
+        transactionTemplate.executeWithoutResult(status -> em.unwrap(Session.class).doWork(connection -> {
+            if (range == null) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("delete from member_search_view");
+                }
+                return;
+            }
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "delete from member_search_view where member_id < ? or member_id > ?")) {
+                delete.setLong(1, range[0]);
+                delete.setLong(2, range[1]);
+                delete.executeUpdate();
+            }
+        }));
+        if (range == null) {
+            return;
+        }
+
+        for (long start = range[0]; start <= range[1]; start += chunkSize) {
+            long from = start;
+            long to = Math.min(start + chunkSize - 1, range[1]);
+            transactionTemplate.executeWithoutResult(status -> em.unwrap(Session.class).doWork(connection ->
+                    rebuildRange(connection, from, to)));
+        }
+    }
+
+    private boolean isEmpty() {
+        return transactionTemplate.execute(status -> em.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("select member_id from member_search_view limit 1")) {
+                return !rs.next();
+            }
+        }));
+    }
+
+    private static void rebuildRange(Connection connection, long from, long to) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_MEMBER_RANGE);
+             PreparedStatement insert = connection.prepareStatement(INSERT_MEMBER_RANGE)) {
+            delete.setLong(1, from);
+            delete.setLong(2, to);
+            delete.executeUpdate();
+            insert.setLong(1, from);
+            insert.setLong(2, to);
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     벌크 연산 후 해당 member 를 다시 반영한다. 트랜잭션 안에서 호출해야 한다.
+     */
+    public void refresh(Collection<Long> memberIds) {
+        if (!enabled || memberIds.isEmpty()) {
+            return;
+        }
+        em.unwrap(Session.class).doWork(connection -> apply(connection, memberIds, Set.of()));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes(event.getSession()).memberIds.add((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes(event.getSession()).memberIds.add((Long) event.getId());
+        } else if (event.getEntity() instanceof Team) {
+            changes(event.getSession()).teamIds.add((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes(event.getSession()).memberIds.add((Long) event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // 세션(트랜잭션)마다 하나, 커밋 직전에 반영하고 트랜잭션이 끝나면(롤백 포함) 버린다.
+    private Changes changes(EventSource session) {
+        Changes changes = pending.get(session);
+        if (changes == null) {
+            changes = new Changes();
+            pending.put(session, changes);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) changes);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> pending.remove(s));
+        }
+        return changes;
+    }
+
+    private static void apply(Connection connection, Collection<Long> memberIds, Collection<Long> teamIds) throws SQLException {
+        if (!memberIds.isEmpty()) {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_MEMBER);
+                 PreparedStatement insert = connection.prepareStatement(INSERT_MEMBER)) {
+                for (Long memberId : memberIds) {
+                    delete.setLong(1, memberId);
+                    delete.addBatch();
+                    insert.setLong(1, memberId);
+                    insert.addBatch();
+                }
+                delete.executeBatch();
+                insert.executeBatch();
+            }
+        }
+        if (!teamIds.isEmpty()) {
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_TEAM_NAME)) {
+                for (Long teamId : teamIds) {
+                    update.setLong(1, teamId);
+                    update.setLong(2, teamId);
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        }
+    }
+
+    private static class Changes implements BeforeTransactionCompletionProcess {
+        private final Set<Long> memberIds = new LinkedHashSet<>();
+        private final Set<Long> teamIds = new LinkedHashSet<>();
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            session.doWork(connection -> apply(connection, memberIds, teamIds));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.QMemberSearchView;
+import study.querydsl.entity.QTeam;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Pageable 의 Sort -> OrderSpecifier
+ * - 정렬 가능한 속성은 아래 whitelist 뿐이다. (id, memberId, username, age, teamName) 그 외는 InvalidSortException (400)
+ * - 마지막에 항상 member.id 를 붙여서 같은 값끼리의 순서를 고정한다. (페이지 사이 중복 / 누락 방지)
+ *   방향은 첫 정렬 방향을 따른다. (인덱스 역방향 스캔 가능)
+ * - member.sort.index-backed 에 선언한 정렬만 인덱스 순서로 읽는 정렬로 본다. (id 는 PK)
+ *   teamName 은 JOIN 경로(JPA / SQL)에서는 team 테이블 컬럼이라 member 인덱스로 정렬할 수 없으므로 VIEW 에서만 인정한다.
+ *   그 외 정렬은 offset 이 member.sort.deep-offset 을 넘으면 filesort 가 커지므로 거부(400)하고, cursor(/v4/members) 로 조회하게 한다.
+ */
+@Component
+public class MemberSort {
+
+    public static final String ID = "id";
+    private static final String TEAM_NAME = "teamName";
+
+    // JPQL: member left join member.team team
+    public static final Map<String, ComparableExpressionBase<?>> JPA =
+            columns(QMember.member.id, QMember.member.username, QMember.member.age, QTeam.team.name);
+
+    // JPQL: member_search_view
+    public static final Map<String, ComparableExpressionBase<?>> VIEW = columns(
+            QMemberSearchView.memberSearchView.memberId,
+            QMemberSearchView.memberSearchView.username,
+            QMemberSearchView.memberSearchView.age,
+            QMemberSearchView.memberSearchView.teamName);
+
+    // querydsl-sql: member left join team
+    public static final Map<String, ComparableExpressionBase<?>> SQL =
+            columns(SMember.member.memberId, SMember.member.username, SMember.member.age, STeam.team.name);
+
+    private final Set<String> indexBacked;
+    private final long deepOffset;
+
+    public MemberSort(@Value("${member.sort.index-backed:id}") String[] indexBacked,
+                      @Value("${member.sort.deep-offset:1000}") long deepOffset) {
+        this.indexBacked = Arrays.stream(indexBacked)
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+        for (String declared : this.indexBacked) {
+            for (String property : declared.split("\\+")) {
+                if (!JPA.containsKey(property)) {
+                    throw new IllegalArgumentException("member.sort.index-backed 에 정렬할 수 없는 속성이 있습니다. " + declared);
+                }
+            }
+        }
+        this.deepOffset = deepOffset;
+    }
+
+    private static Map<String, ComparableExpressionBase<?>> columns(ComparableExpressionBase<?> id,
+                                                                   ComparableExpressionBase<?> username,
+                                                                   ComparableExpressionBase<?> age,
+                                                                   ComparableExpressionBase<?> teamName) {
+        Map<String, ComparableExpressionBase<?>> columns = new HashMap<>();
+        columns.put(ID, id);
+        columns.put("username", username);
+        columns.put("age", age);
+        columns.put(TEAM_NAME, teamName);
+        return Map.copyOf(columns);
+    }
+
+    /**
+     * @param columns JPA / VIEW / SQL 중 조회하는 쪽
+     */
+    public OrderSpecifier<?>[] orderBy(Pageable pageable, Map<String, ComparableExpressionBase<?>> columns) {
+        List<Sort.Order> orders = orders(pageable.getSort());
+        if (pageable.isPaged() && pageable.getOffset() > deepOffset && !isIndexBacked(orders, columns)) {
+            throw new InvalidSortException("인덱스가 없는 정렬은 offset " + deepOffset
+                    + " 까지만 조회할 수 있습니다. 더 뒤 페이지는 cursor 로 조회하세요. (/v4/members) sort=" + pageable.getSort());
+        }
+
+        List<OrderSpecifier<?>> specifiers = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Order order : orders) {
+            specifiers.add(orderOf(columns.get(order.getProperty()), order.getDirection()));
+            hasId |= ID.equals(order.getProperty());
+        }
+        if (!hasId) {
+            Sort.Direction direction = orders.isEmpty() ? Sort.Direction.ASC : orders.get(0).getDirection();
+            specifiers.add(orderOf(columns.get(ID), direction));
+        }
+        return specifiers.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    // 정렬이 없거나 id 오름차순뿐이면 true (메모리 인덱스는 id 순으로만 돌려준다)
+    public static boolean isIdAscending(Sort sort) {
+        List<Sort.Order> orders = orders(sort);
+        return orders.isEmpty()
+                || (ID.equals(orders.get(0).getProperty()) && orders.get(0).isAscending());
+    }
+
+    /**
+     * 선언된 인덱스 순서와 속성이 같고(마지막 id 는 제외) id 까지의 방향이 모두 같으면 인덱스로 정렬된다.
+     * 예) index-backed: username+age -> sort=username,desc&sort=age,desc
+     *     (read-model: VIEW 이면 teamName+age 도 가능)
+     */
+    boolean isIndexBacked(List<Sort.Order> orders, Map<String, ComparableExpressionBase<?>> columns) {
+        List<String> properties = new ArrayList<>();
+        Set<Sort.Direction> directions = EnumSet.noneOf(Sort.Direction.class);
+        for (Sort.Order order : orders) {
+            directions.add(order.getDirection());
+            if (ID.equals(order.getProperty())) {
+                break; // id 뒤의 정렬은 의미 없음 (방향도 보지 않는다)
+            }
+            properties.add(order.getProperty());
+        }
+        if (properties.isEmpty()) {
+            return true; // id 만 (PK)
+        }
+        if (columns != VIEW && properties.contains(TEAM_NAME)) {
+            return false; // member 와 team 두 테이블에 걸친 정렬
+        }
+        return directions.size() == 1 && indexBacked.contains(String.join("+", properties));
+    }
+
+    // memberId == id, whitelist 검사
+    private static List<Sort.Order> orders(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String property = "memberId".equals(order.getProperty()) ? ID : order.getProperty();
+            if (!JPA.containsKey(property)) {
+                throw new InvalidSortException("정렬할 수 없는 속성입니다. sort="
+                        + order.getProperty() + " (가능: id, memberId, username, age, teamName)");
+            }
+            orders.add(new Sort.Order(order.getDirection(), property));
+        }
+        return orders;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static OrderSpecifier<?> orderOf(ComparableExpressionBase<?> column, Sort.Direction direction) {
+        return new OrderSpecifier(direction.isAscending() ? Order.ASC : Order.DESC, column);
+    }
+}
@@ -0,0 +1,170 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.core.types.dsl.Wildcard;
+import com.querydsl.sql.SQLExpressions;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.StatementOptions;
+import com.querydsl.sql.WindowFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.SMemberSearchView.memberSearchView;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * querydsl-sql 로 조회하는 DTO 검색 (member.sql-backend.enabled: true 일 때 MemberRepositoryImpl 이 사용)
+ * - JPQL 파싱 / SQL 변환 / 영속성 컨텍스트를 거치지 않고 JDBC 로 바로 조회해서 MemberTeamDto 를 만든다.
+ * - 조건은 MemberConditions.SQL, 프로젝션은 JPA 와 같은 QMemberTeamDto 를 쓴다.
+ * - JPA 트랜잭션의 커넥션을 같이 쓰지만 auto flush 는 없다. (flush 전 변경은 보이지 않음)
+ * - SMember / STeam 은 querydsl-sql-codegen 으로 만든 메타데이터, member / team 매핑이 바뀌면 다시 생성한다.
+ */
+@Repository
+@Transactional(readOnly = true) // SpringConnectionProvider 는 트랜잭션 커넥션만 사용
+public class MemberSqlRepository {
+
+    private final SQLQueryFactory queryFactory;
+    private final MemberSort memberSort;
+    private final boolean enabled;
+
+    // 실제 SQLQueryFactory 는 첫 쿼리에서 만든다. (QuerydslApplication.sqlQueryFactory)
+    public MemberSqlRepository(@Lazy SQLQueryFactory queryFactory,
+                               MemberSort memberSort,
+                               @Value("${member.sql-backend.enabled:false}") boolean enabled) {
+        this.queryFactory = queryFactory;
+        this.memberSort = memberSort;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return selectMemberTeam(condition).fetch();
+    }
+
+    public List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable) {
+        return selectMemberTeam(condition)
+                .orderBy(memberSort.orderBy(pageable, MemberSort.SQL))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    // teamName 조건이 있을 때만 team 을 join 한다.
+    public long count(MemberSearchCondition condition) {
+        SQLQuery<Long> query = queryFactory
+                .select(member.memberId.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(team).on(member.teamId.eq(team.teamId));
+        }
+        return query
+                .where(MemberConditions.SQL.of(condition))
+                .fetchOne();
+    }
+
+    /**
+     최대 cap 개까지만 센 count (count budget 을 넘었을 때의 근사값, MemberCountCache)
+     - select count(*) from (select member_id from member ... limit cap) capped
+       cap 개를 읽으면 멈추고, id 를 애플리케이션으로 가져오지 않는다.
+     - JPQL 은 from 절 서브쿼리가 없어서 querydsl-sql 로 센다.
+     - timeoutSeconds 가 0 보다 크면 statement timeout, 넘으면 org.springframework.dao.QueryTimeoutException
+     */
+    public long countUpTo(MemberSearchCondition condition, int cap, int timeoutSeconds) {
+        SQLQuery<Long> capped = SQLExpressions
+                .select(member.memberId)
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            capped.join(team).on(member.teamId.eq(team.teamId));
+        }
+        capped.where(MemberConditions.SQL.of(condition)).limit(cap);
+        return countCapped(capped, timeoutSeconds);
+    }
+
+    // member.read-model: VIEW
+    public long countViewUpTo(MemberSearchCondition condition, int cap, int timeoutSeconds) {
+        return countCapped(SQLExpressions
+                .select(memberSearchView.memberId)
+                .from(memberSearchView)
+                .where(MemberConditions.SQL_VIEW.of(condition))
+                .limit(cap), timeoutSeconds);
+    }
+
+    private long countCapped(SQLQuery<Long> capped, int timeoutSeconds) {
+        SQLQuery<Long> query = queryFactory
+                .select(Wildcard.count)
+                .from(capped, new PathBuilder<>(Object.class, "capped"));
+        if (timeoutSeconds > 0) {
+            query.setStatementOptions(StatementOptions.builder().setQueryTimeout(timeoutSeconds).build());
+        }
+        return query.fetchOne();
+    }
+
+    /**
+     팀별 나이순 상위 limitPerTeam 명
+     - row_number() over (partition by team_id order by age, member_id) 를 from 절 서브쿼리에서 한번에 매기고 rn <= limitPerTeam 만 남긴다.
+       (팀마다 / row 마다 상관 서브쿼리를 돌리지 않고 스캔 한번)
+     - JPQL 은 from 절 서브쿼리가 없어서 순위로 거를 수 없으므로 querydsl-sql 로 조회한다.
+     - 팀이 없는 member 는 제외, 결과는 team_id, 순위 순
+     */
+    public List<MemberTeamDto> searchTopPerTeam(MemberSearchCondition condition, int limitPerTeam, Sort.Direction ageDirection) {
+        Order order = ageDirection.isAscending() ? Order.ASC : Order.DESC;
+        WindowFunction<Long> rowNumber = SQLExpressions.rowNumber()
+                .over()
+                .partitionBy(member.teamId)
+                .orderBy(new OrderSpecifier<>(order, member.age), new OrderSpecifier<>(order, member.memberId));
+
+        SQLQuery<Tuple> ranked = SQLExpressions
+                .select(member.memberId, member.username, member.age, team.teamId, team.name, rowNumber.as("rn"))
+                .from(member)
+                .join(team).on(member.teamId.eq(team.teamId))
+                .where(MemberConditions.SQL.of(condition));
+
+        // 서브쿼리 컬럼은 컬럼명으로 참조
+        PathBuilder<Object> rankedAlias = new PathBuilder<>(Object.class, "ranked");
+        NumberPath<Long> teamId = rankedAlias.getNumber("team_id", Long.class);
+        NumberPath<Long> rn = rankedAlias.getNumber("rn", Long.class);
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        rankedAlias.getNumber("member_id", Long.class),
+                        rankedAlias.getString("username"),
+                        rankedAlias.getNumber("age", Integer.class),
+                        teamId,
+                        rankedAlias.getString("name")))
+                .from(ranked, rankedAlias)
+                .where(rn.loe((long) limitPerTeam))
+                .orderBy(teamId.asc(), rn.asc())
+                .fetch();
+    }
+
+    private SQLQuery<MemberTeamDto> selectMemberTeam(MemberSearchCondition condition) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.memberId,
+                        member.username,
+                        member.age,
+                        team.teamId,
+                        team.name))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.teamId))
+                .where(MemberConditions.SQL.of(condition));
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.repository;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 쿼리 실행용 executor
+ * - Java 21 이상이면 virtual thread (쿼리 대기 중에 carrier thread 를 점유하지 않는다)
+ * - 그 아래 버전이면 크기가 정해진 thread pool, 큐가 차면 호출한 쓰레드에서 실행 (backpressure)
+ * 컴파일은 Java 11 기준이라 virtual thread 는 reflection 으로 생성한다.
+ */
+public final class QueryExecutors {
+
+    private QueryExecutors() {
+    }
+
+    public static ExecutorService create(int poolSize, int queueSize) {
+        ExecutorService virtualThreads = virtualThreadPerTaskExecutor();
+        if (virtualThreads != null) {
+            return virtualThreads;
+        }
+        return new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                namedThreads("member-query-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     커넥션 수에 맞춰 동시 실행 수를 제한해야 하는 경우 (virtual thread 를 쓰지 않는다)
+     - 작업은 큐에서 기다린다.
+     */
+    public static ExecutorService fixed(int poolSize, String threadPrefix) {
+        return Executors.newFixedThreadPool(poolSize, namedThreads(threadPrefix));
+    }
+
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
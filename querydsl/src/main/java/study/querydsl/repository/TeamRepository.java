@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import study.querydsl.entity.Team;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    // findById 는 Team 2차 캐시, 이름 조회는 쿼리 캐시를 사용
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    Optional<Team> findByName(String name);
+}
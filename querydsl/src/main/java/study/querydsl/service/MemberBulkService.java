@@ -0,0 +1,220 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.core.Tuple;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.InClause;
+import study.querydsl.repository.MemberConditions;
+import study.querydsl.repository.MemberCountCache;
+import study.querydsl.repository.MemberMemoryIndex;
+import study.querydsl.repository.MemberSearchCoalescer;
+import study.querydsl.repository.MemberSearchViewSync;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 영속성 컨텍스트를 비우지 않는 벌크 update / delete (MemberRepository.bulkAddAge / bulkDelete 도 여기로 온다)
+ * - 대상 id 를 chunk-size 개씩 id 순으로 끊어서 chunk 마다 트랜잭션을 나눈다. (락 유지 시간, 복제 지연 감소)
+ *   이미 트랜잭션 안에서 호출하면 그 트랜잭션에 참여한다.
+ * - em.clear() 대신 해당 chunk 의 id 중 영속성 컨텍스트에 올라와 있는 Member 만
+ *   age 를 쿼리 한번으로 다시 읽어서 맞추거나(update) detach(delete) 한다.
+ * - 2차 캐시, 쿼리 캐시는 hibernate 가 벌크 연산 시 무효화하고, count 캐시와 재사용 중인 검색 결과는 여기서 비운다.
+ *   커밋 후에 한번 더 비운다. (커밋 전에만 비우면 그 사이 다른 요청이 변경 전 값으로 다시 채운다)
+ * - member_search_view, 메모리 인덱스를 쓰는 경우 chunk 의 id 를 다시 반영한다.
+ */
+@Service
+public class MemberBulkService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchCoalescer searchCoalescer;
+    private final MemberSearchViewSync searchView;
+    private final MemberMemoryIndex memoryIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public MemberBulkService(EntityManager em,
+                             JPAQueryFactory queryFactory,
+                             MemberCountCache countCache,
+                             MemberSearchCoalescer searchCoalescer,
+                             MemberSearchViewSync searchView,
+                             MemberMemoryIndex memoryIndex,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${member.bulk.chunk-size:500}") int chunkSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.countCache = countCache;
+        this.searchCoalescer = searchCoalescer;
+        this.searchView = searchView;
+        this.memoryIndex = memoryIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public long addAge(MemberSearchCondition condition, int amount) {
+        return inChunks(condition, ids -> {
+            long count = queryFactory
+                    .update(member)
+                    .set(member.age, member.age.add(amount))
+                    .where(member.id.in(InClause.pad(ids)))
+                    .execute();
+            syncAge(managedMembers(ids));
+            return count;
+        });
+    }
+
+    public long delete(MemberSearchCondition condition) {
+        return inChunks(condition, ids -> {
+            for (Member managed : managedMembers(ids)) {
+                if (managed.getTeam() != null && Hibernate.isInitialized(managed.getTeam().getMembers())) {
+                    managed.getTeam().getMembers().remove(managed);
+                }
+                em.detach(managed);
+            }
+            return queryFactory
+                    .delete(member)
+                    .where(member.id.in(InClause.pad(ids)))
+                    .execute();
+        });
+    }
+
+    private long inChunks(MemberSearchCondition condition, ToLongFunction<List<Long>> action) {
+        long total = 0;
+        Long lastId = null;
+        while (true) {
+            Long afterId = lastId;
+            Chunk chunk = transactionTemplate.execute(status -> {
+                em.flush(); // 벌크 연산 전에 변경 내용 반영
+                List<Long> ids = idsAfter(condition, afterId);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                long count = action.applyAsLong(ids);
+                searchView.refresh(ids); // 벌크 연산은 이벤트가 없으므로 직접 반영
+                memoryIndex.reload(ids);
+                invalidateCaches();
+                return new Chunk(count, ids.get(ids.size() - 1));
+            });
+            if (chunk == null) {
+                break;
+            }
+            total += chunk.count;
+            lastId = chunk.lastId;
+        }
+        return total;
+    }
+
+    // 같은 트랜잭션에서 바로 읽는 경우를 위해 지금 비우고, 커밋 후에 다시 비운다. (MemberMemoryIndex.reload 와 같은 방식)
+    private void invalidateCaches() {
+        countCache.invalidateAll();
+        searchCoalescer.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    countCache.invalidateAll();
+                    searchCoalescer.invalidateAll();
+                }
+            });
+        }
+    }
+
+    // 조건에 맞는 id 를 afterId 다음부터 chunk-size 개 (id 순 keyset)
+    private List<Long> idsAfter(MemberSearchCondition condition, Long afterId) {
+        return queryFactory
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberConditions.JPA_JOIN.of(condition))
+                .where(afterId == null ? null : member.id.gt(afterId))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+    }
+
+    /**
+     벌크 update 된 age 를 영속 상태의 Member 에 반영한다. (em.refresh 를 엔티티마다 하지 않고 select 한번)
+     - 엔티티 값과 dirty checking 용 loaded state 를 같이 바꿔서 flush 때 update 가 나가지 않는다.
+     */
+    private void syncAge(List<Member> managed) {
+        if (managed.isEmpty()) {
+            return;
+        }
+        List<Long> managedIds = new ArrayList<>(managed.size());
+        for (Member m : managed) {
+            managedIds.add(m.getId());
+        }
+        Map<Long, Integer> ages = new HashMap<>();
+        for (List<Long> chunk : InClause.paddedChunks(managedIds)) {
+            for (Tuple row : queryFactory
+                    .select(member.id, member.age)
+                    .from(member)
+                    .where(member.id.in(chunk))
+                    .fetch()) {
+                ages.put(row.get(member.id), row.get(member.age));
+            }
+        }
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        int ageIndex = persister.getEntityMetamodel().getPropertyIndex("age");
+        for (Member m : managed) {
+            Integer age = ages.get(m.getId());
+            if (age == null) {
+                continue;
+            }
+            persister.setPropertyValue(m, ageIndex, age);
+            EntityEntry entry = session.getPersistenceContext().getEntry(m);
+            if (entry != null && entry.getLoadedState() != null) {
+                entry.getLoadedState()[ageIndex] = age;
+            }
+        }
+    }
+
+    // 영속성 컨텍스트에 이미 있는 Member 만 (새로 로딩하지 않는다)
+    private List<Member> managedMembers(List<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+
+        List<Member> managed = new ArrayList<>();
+        for (Long id : ids) {
+            Object entity = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+            if (entity != null) {
+                managed.add((Member) entity);
+            }
+        }
+        return managed;
+    }
+
+    private static class Chunk {
+        private final long count;
+        private final Long lastId;
+
+        private Chunk(long count, Long lastId) {
+            this.count = count;
+            this.lastId = lastId;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 대량 회원 등록
+ * - 입력은 Iterator / Stream 으로 받아서 chunk-size 개씩만 메모리에 올린다.
+ * - chunk 마다 새 트랜잭션(REQUIRES_NEW)으로 커밋한다. 트랜잭션 안에서 호출해도 호출한 쪽 영속성 컨텍스트는 건드리지 않는다.
+ *   중간에 실패하면 이미 커밋된 chunk 는 남는다.
+ * - id 는 pooled 생성기(allocationSize 50)라 insert 마다 id 조회를 하지 않는다. (IDENTITY 면 batch insert 불가)
+ * - hibernate.jdbc.batch_size 단위로 flush 해서 insert 를 모아서 보낸다.
+ * - MySQL 은 rewriteBatchedStatements=true 로 batch 가 multi-row insert 로 바뀐다.
+ */
+@Service
+public class MemberIngestService {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int chunkSize;
+
+    public MemberIngestService(EntityManager em,
+                               JPAQueryFactory queryFactory,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize,
+                               @Value("${member.ingest.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    // stream 은 호출한 쪽에서 닫는다.
+    public int ingest(Stream<MemberIngestRow> rows) {
+        return ingest(rows.iterator());
+    }
+
+    public int ingest(Iterator<MemberIngestRow> rows) {
+        int count = 0;
+        List<MemberIngestRow> chunk = new ArrayList<>(chunkSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                count += saveChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            count += saveChunk(chunk);
+        }
+        return count;
+    }
+
+    /**
+     chunk 하나를 새 트랜잭션에서 저장한다.
+     - 영속성 컨텍스트는 이 트랜잭션 것이라 커밋되면 같이 닫힌다. (clear 하지 않음)
+     - Team 은 영속 상태로 가지고 있어서 new Member(.., team) 의 changeTeam() 이 team.members 를 로딩하지 않는다. (mappedBy 쪽 컬렉션 add 는 지연)
+     */
+    private int saveChunk(List<MemberIngestRow> rows) {
+        Integer saved = transactionTemplate.execute(status -> {
+            Map<String, Team> teams = saveTeams(rows);
+
+            int count = 0;
+            for (MemberIngestRow row : rows) {
+                Team memberTeam = row.getTeamName() == null ? null : teams.get(row.getTeamName());
+                em.persist(new Member(row.getUsername(), row.getAge(), memberTeam));
+                if (++count % batchSize == 0) {
+                    em.flush();
+                }
+            }
+            return count;
+        });
+        return saved == null ? 0 : saved;
+    }
+
+    // 팀 이름 -> Team, 없는 팀은 먼저 등록 (같은 이름이 여러개면 id 가 작은 팀)
+    private Map<String, Team> saveTeams(List<MemberIngestRow> rows) {
+        Set<String> teamNames = new LinkedHashSet<>();
+        for (MemberIngestRow row : rows) {
+            if (row.getTeamName() != null) {
+                teamNames.add(row.getTeamName());
+            }
+        }
+
+        Map<String, Team> teams = new HashMap<>();
+        if (teamNames.isEmpty()) {
+            return teams;
+        }
+        List<Team> existing = queryFactory
+                .selectFrom(team)
+                .where(team.name.in(teamNames))
+                .orderBy(team.id.asc())
+                .fetch();
+        for (Team findTeam : existing) {
+            teams.putIfAbsent(findTeam.getName(), findTeam);
+        }
+        for (String teamName : teamNames) {
+            if (!teams.containsKey(teamName)) {
+                Team newTeam = new Team(teamName);
+                em.persist(newTeam);
+                teams.put(teamName, newTeam);
+            }
+        }
+        return teams;
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * member.shard.enabled=true 일 때만 사용
+ * - shard 마다 DataSource + EntityManagerFactory 를 따로 만든다. (spring.datasource 와는 별개)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "member.shard", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardConfig {
+
+    @Bean
+    public ShardedMemberRepository shardedMemberRepository(DataSourceProperties dataSourceProperties,
+                                                           ShardProperties shardProperties) {
+        List<EntityManagerFactory> shards = new ArrayList<>();
+        List<ShardProperties.Shard> shardList = shardProperties.getShards();
+        for (int i = 0; i < shardList.size(); i++) {
+            ShardProperties.Shard shard = shardList.get(i);
+            DataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            shards.add(entityManagerFactory("shard" + i, dataSource, shardProperties.getJpaProperties()));
+        }
+        return new ShardedMemberRepository(shards, shardProperties.getParallelism());
+    }
+
+    // 2차 캐시는 끈다. (shard 마다 region 이 겹친다)
+    public static EntityManagerFactory entityManagerFactory(String name, DataSource dataSource,
+                                                            Map<String, ?> jpaProperties) {
+        Map<String, Object> properties = new HashMap<>(jpaProperties);
+        properties.put("hibernate.cache.use_second_level_cache", "false");
+        properties.put("hibernate.cache.use_query_cache", "false");
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setPersistenceUnitName(name);
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan(Member.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(properties);
+        factory.afterPropertiesSet();
+        return factory.getObject();
+    }
+}
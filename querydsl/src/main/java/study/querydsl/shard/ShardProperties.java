@@ -0,0 +1,29 @@
+package study.querydsl.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.shard")
+public class ShardProperties {
+
+    private boolean enabled;
+    private int parallelism = 8;
+    private Map<String, String> jpaProperties = new LinkedHashMap<>(); // shard EntityManagerFactory 용 hibernate 설정
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,371 @@
+package study.querydsl.shard;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.InvalidSortException;
+import study.querydsl.repository.MemberConditions;
+import study.querydsl.repository.QueryExecutors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * team_id 기준으로 member 를 여러 DB(shard) 에 나눠 저장하는 repository
+ * - member 의 shard = floorMod(team_id, shard 수), 팀이 없으면 0번
+ * - team 은 모든 shard 에 같은 id 로 복제한다. (shard 안에서 member join team 이 되도록, id 는 0번 shard 에서 발급)
+ * - member id 는 shard 마다 구간을 나눠 발급한다. (i 번 shard 는 i * ID_SPAN 부터) shard 를 옮겨도 id 가 겹치지 않는다.
+ * - 조회는 대상 shard 에 병렬로 보내고(scatter) 요청한 정렬 + member id 순으로 k-way merge 한다. (gather)
+ *   teamName 조건이 있으면 그 팀이 있는 shard 에만 보낸다.
+ *   문자열 순서는 DB collation 을 따르므로 여러 shard 를 merge 할 때는 숫자 컬럼(id, age)으로만 정렬할 수 있다.
+ * - 여러 shard 에 걸친 쓰기(team 복제, changeTeam 으로 shard 이동)는 하나의 트랜잭션이 아니다.
+ */
+public class ShardedMemberRepository implements DisposableBean {
+
+    static final long ID_SPAN = 1_000_000_000_000L;
+
+    private static final Map<String, ComparableExpressionBase<?>> SORT_PATHS = Map.of(
+            "id", member.id,
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamName", team.name);
+
+    // merge 에서 비교할 수 있는 정렬 (숫자 컬럼만)
+    private static final Map<String, Function<MemberTeamDto, Comparable<?>>> SORT_VALUES = Map.of(
+            "id", MemberTeamDto::getMemberId,
+            "memberId", MemberTeamDto::getMemberId,
+            "age", MemberTeamDto::getAge);
+
+    private final List<EntityManagerFactory> shards;
+    private final ExecutorService executor;
+
+    public ShardedMemberRepository(List<EntityManagerFactory> shards, int parallelism) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("shard 가 하나 이상 필요합니다.");
+        }
+        this.shards = List.copyOf(shards);
+        this.executor = QueryExecutors.fixed(parallelism, "member-shard-");
+        for (int shard = 1; shard < shards.size(); shard++) {
+            rebaseMemberIds(shard);
+        }
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(Long teamId) {
+        return teamId == null ? 0 : (int) Math.floorMod(teamId, (long) shards.size());
+    }
+
+    // 0번 shard 에서 id 를 발급하고 나머지 shard 에 같은 id 로 복제
+    public Long saveTeam(String name) {
+        Long teamId = inShard(0, em -> {
+            Team saved = new Team(name);
+            em.persist(saved);
+            em.flush();
+            return saved.getId();
+        });
+        for (int shard = 1; shard < shards.size(); shard++) {
+            inShard(shard, em -> em.createNativeQuery("insert into team (team_id, name) values (?, ?)")
+                    .setParameter(1, teamId)
+                    .setParameter(2, name)
+                    .executeUpdate());
+        }
+        return teamId;
+    }
+
+    public void changeTeamName(Long teamId, String name) {
+        scatter(allShards(), em -> em.createQuery("update Team t set t.name = :name where t.id = :id")
+                .setParameter("name", name)
+                .setParameter("id", teamId)
+                .executeUpdate());
+    }
+
+    public Long save(String username, int age, Long teamId) {
+        return inShard(shardOf(teamId), em -> {
+            Member saved = new Member(username, age);
+            if (teamId != null) {
+                saved.setTeam(em.getReference(Team.class, teamId));
+            }
+            em.persist(saved);
+            em.flush();
+            return saved.getId();
+        });
+    }
+
+    /**
+     다른 shard 의 팀으로 옮기면 대상 shard 에 같은 id 로 insert 후 원래 shard 에서 delete 한다.
+     (중간에 실패하면 두 shard 에 모두 남을 수 있으므로 다시 호출해서 정리한다)
+     */
+    public void changeTeam(Long memberId, Long teamId) {
+        int source = findShard(memberId);
+        int target = shardOf(teamId);
+        if (source == target) {
+            inShard(source, em -> {
+                em.find(Member.class, memberId).setTeam(teamId == null ? null : em.getReference(Team.class, teamId));
+                return null;
+            });
+            return;
+        }
+
+        Member moving = inShard(source, em -> em.find(Member.class, memberId));
+        inShard(target, em -> em.createNativeQuery(
+                        "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)")
+                .setParameter(1, memberId)
+                .setParameter(2, moving.getUsername())
+                .setParameter(3, moving.getAge())
+                .setParameter(4, teamId)
+                .executeUpdate());
+        inShard(source, em -> em.createQuery("delete from Member m where m.id = :id")
+                .setParameter("id", memberId)
+                .executeUpdate());
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<Integer> targets = targetShards(condition);
+        List<List<MemberTeamDto>> results = scatter(targets, em -> query(em, condition)
+                .orderBy(member.id.asc())
+                .fetch());
+        return merge(results, comparator(Sort.unsorted()), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     shard 마다 offset + size 개를 정렬해서 가져와 merge 후 offset 부터 size 개
+     - shard 가 하나면 DB 정렬 그대로라 username / teamName 정렬도 된다.
+     - total 은 shard 별 count 의 합 (필요할 때만)
+     */
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<Integer> targets = targetShards(condition);
+        OrderSpecifier<?>[] orders = orderSpecifiers(pageable.getSort());
+        Comparator<MemberTeamDto> comparator = targets.size() > 1 ? comparator(pageable.getSort()) : (a, b) -> 0;
+        long limit = pageable.getOffset() + pageable.getPageSize();
+
+        List<List<MemberTeamDto>> results = scatter(targets, em -> query(em, condition)
+                .orderBy(orders)
+                .limit(limit)
+                .fetch());
+        List<MemberTeamDto> content = merge(results, comparator, pageable.getOffset(), pageable.getPageSize());
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> scatter(targets, em -> new JPAQueryFactory(em)
+                        .select(member.count())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(MemberConditions.JPA_JOIN.of(condition))
+                        .fetchOne())
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum());
+    }
+
+    // teamName 이 있으면 그 이름의 팀이 있는 shard 만 (team 은 모든 shard 에 있으므로 0번에서 찾는다)
+    List<Integer> targetShards(MemberSearchCondition condition) {
+        if (!hasText(condition.getTeamName())) {
+            return allShards();
+        }
+        List<Long> teamIds = inShard(0, em -> new JPAQueryFactory(em)
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(condition.getTeamName()))
+                .fetch());
+        return new ArrayList<>(teamIds.stream()
+                .map(this::shardOf)
+                .collect(Collectors.toCollection(TreeSet::new)));
+    }
+
+    private List<Integer> allShards() {
+        return IntStream.range(0, shards.size()).boxed().collect(Collectors.toList());
+    }
+
+    private int findShard(Long memberId) {
+        List<Boolean> found = scatter(allShards(), em -> em.find(Member.class, memberId) != null);
+        int shard = found.indexOf(true);
+        if (shard < 0) {
+            throw new IllegalArgumentException("member 가 없습니다. memberId=" + memberId);
+        }
+        return shard;
+    }
+
+    private static JPAQuery<MemberTeamDto> query(EntityManager em, MemberSearchCondition condition) {
+        return new JPAQueryFactory(em)
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberConditions.JPA_JOIN.of(condition));
+    }
+
+    // 요청한 정렬 + member.id (shard 간 merge 와 같은 순서)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase path = sortPath(order.getProperty());
+            orders.add(new OrderSpecifier(order.isAscending() ? Order.ASC : Order.DESC, path));
+        }
+        orders.add(member.id.asc());
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    // null 은 MySQL 처럼 오름차순에서 앞, 내림차순에서 뒤.
+    // 문자열은 Java 비교가 DB collation(MySQL 은 대소문자 / 악센트 무시)과 달라 shard 마다의 순서와 어긋나므로 받지 않는다.
+    private static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = null;
+        for (Sort.Order order : sort) {
+            sortPath(order.getProperty());
+            Function<MemberTeamDto, Comparable<?>> value = SORT_VALUES.get(order.getProperty());
+            if (value == null) {
+                throw new InvalidSortException("여러 shard 에 걸친 조회는 id, age 로만 정렬할 수 있습니다."
+                        + " (teamName 조건으로 shard 하나만 조회하면 가능) sort=" + order.getProperty());
+            }
+            Comparator<MemberTeamDto> next = (a, b) -> compare(value.apply(a), value.apply(b), order.isAscending());
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Comparable a, Comparable b, boolean ascending) {
+        if (a == null || b == null) {
+            if (a == b) {
+                return 0;
+            }
+            return (a == null) == ascending ? -1 : 1;
+        }
+        return ascending ? a.compareTo(b) : b.compareTo(a);
+    }
+
+    private static ComparableExpressionBase<?> sortPath(String property) {
+        ComparableExpressionBase<?> path = SORT_PATHS.get(property);
+        if (path == null) {
+            throw new InvalidSortException("정렬할 수 없는 항목입니다. sort=" + property);
+        }
+        return path;
+    }
+
+    // shard 별로 정렬된 목록들을 합친다. (우선순위 큐 k-way merge)
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedLists, Comparator<MemberTeamDto> comparator,
+                                     long offset, int size) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) ->
+                comparator.compare(sortedLists.get(a[0]).get(a[1]), sortedLists.get(b[0]).get(b[1])));
+        for (int i = 0; i < sortedLists.size(); i++) {
+            if (!sortedLists.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        long skipped = 0;
+        while (!heads.isEmpty() && result.size() < size) {
+            int[] head = heads.poll();
+            List<MemberTeamDto> list = sortedLists.get(head[0]);
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(list.get(head[1]));
+            }
+            if (head[1] + 1 < list.size()) {
+                heads.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return result;
+    }
+
+    private <R> List<R> scatter(List<Integer> targets, Function<EntityManager, R> work) {
+        List<CompletableFuture<R>> futures = new ArrayList<>(targets.size());
+        for (Integer shard : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> inShard(shard, work), executor));
+        }
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    // shard 마다 EntityManager 를 새로 열고 트랜잭션 하나로 실행 (resource local)
+    private <R> R inShard(int shard, Function<EntityManager, R> work) {
+        EntityManager em = shards.get(shard).createEntityManager();
+        try {
+            em.getTransaction().begin();
+            R result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     i 번 shard 의 member_seq 를 i * ID_SPAN 부터 시작하게 한다. (sequence 값이 이미 그 구간 이상이면 그대로)
+     - max(member_id) 는 보지 않는다. 다른 shard 에서 옮겨 온 member(changeTeam) 나 삭제 때문에 sequence 위치와 다를 수 있다.
+     - sequence 는 다음 값을 하나 꺼내서 본다. (pooled 라 하나 건너뛰어도 id 가 겹치지 않는다)
+     */
+    private void rebaseMemberIds(int shard) {
+        long base = shard * ID_SPAN;
+        Dialect dialect = shards.get(shard).unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        inShard(shard, em -> {
+            String current = dialect.supportsSequences()
+                    ? dialect.getSequenceNextValString("member_seq")
+                    : "select next_val from member_seq for update";
+            Number next = (Number) em.createNativeQuery(current).getSingleResult();
+            if (next != null && next.longValue() >= base) {
+                return null;
+            }
+            if (dialect.supportsSequences()) {
+                em.createNativeQuery("alter sequence member_seq restart with " + base).executeUpdate();
+            } else {
+                // MySQL 은 sequence 대신 테이블 (next_val)
+                em.createNativeQuery("update member_seq set next_val = " + base).executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        shards.forEach(EntityManagerFactory::close);
+    }
+}
@@ -0,0 +1,166 @@
+package study.querydsl.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.shard.ShardConfig;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 임베디드 H2 여러개로 primary / replica 라우팅 확인
+ * - 각 DB 의 node 테이블에 자기 이름을 넣어두고 어디서 읽었는지 본다.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    ReplicaRoutingDataSource routingDataSource;
+    AtomicLong lag = new AtomicLong();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        routingDataSource.destroy();
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        DataSource dataSource = routing(ReplicaBalancing.ROUND_ROBIN, "replica0");
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        tx.setReadOnly(false);
+        assertThat(tx.execute(status -> node(jdbcTemplate))).isEqualTo("primary");
+
+        tx.setReadOnly(true);
+        assertThat(tx.execute(status -> node(jdbcTemplate))).isEqualTo("replica0");
+
+        // 트랜잭션 밖 -> primary
+        assertThat(node(jdbcTemplate)).isEqualTo("primary");
+    }
+
+    @Test
+    public void readOnlyQueryOutsideTransaction() {
+        DataSource dataSource = routing(ReplicaBalancing.ROUND_ROBIN, "replica0");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        ReadOnlyQueryContext.enter();
+        try {
+            assertThat(node(jdbcTemplate)).isEqualTo("replica0");
+        } finally {
+            ReadOnlyQueryContext.exit();
+        }
+
+        // 쓰기 트랜잭션 안에서는 @ReadOnlyQuery 여도 primary
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        String node = tx.execute(status -> {
+            ReadOnlyQueryContext.enter();
+            try {
+                return node(jdbcTemplate);
+            } finally {
+                ReadOnlyQueryContext.exit();
+            }
+        });
+        assertThat(node).isEqualTo("primary");
+    }
+
+    /**
+     JPA(Hibernate) 경로, open-in-view 가 꺼진 경우
+     - 트랜잭션 밖 @ReadOnlyQuery 조회는 조회마다 EntityManager 를 열고 닫으므로 replica 커넥션을 잡고 있지 않는다.
+     - 같은 쓰레드의 뒤이은 쓰기 트랜잭션은 primary
+     */
+    @Test
+    public void readOnlyQueryThenWriteTransactionWithJpa() {
+        DataSource dataSource = routing(ReplicaBalancing.ROUND_ROBIN, "replica0");
+        EntityManagerFactory emf = ShardConfig.entityManagerFactory("routing", dataSource, Map.of(
+                "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "hibernate.hbm2ddl.auto", "none"));
+        try {
+            EntityManager em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+            TransactionTemplate tx = new TransactionTemplate(new JpaTransactionManager(emf));
+
+            ReadOnlyQueryContext.enter();
+            try {
+                assertThat(node(em)).isEqualTo("replica0");
+            } finally {
+                ReadOnlyQueryContext.exit();
+            }
+            assertThat(tx.execute(status -> node(em))).isEqualTo("primary");
+
+            tx.setReadOnly(true);
+            assertThat(tx.execute(status -> node(em))).isEqualTo("replica0");
+        } finally {
+            emf.close();
+        }
+    }
+
+    @Test
+    public void roundRobin() {
+        DataSource dataSource = routing(ReplicaBalancing.ROUND_ROBIN, "replica0", "replica1");
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        String first = tx.execute(status -> node(jdbcTemplate));
+        String second = tx.execute(status -> node(jdbcTemplate));
+        String third = tx.execute(status -> node(jdbcTemplate));
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(third).isEqualTo(first);
+    }
+
+    @Test
+    public void laggingReplicaFallsBackToPrimary() {
+        DataSource dataSource = routing(ReplicaBalancing.LEAST_CONNECTIONS, "replica0");
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        lag.set(60);
+        routingDataSource.refreshLag();
+        assertThat(tx.execute(status -> node(jdbcTemplate))).isEqualTo("primary");
+
+        lag.set(0);
+        routingDataSource.refreshLag();
+        assertThat(tx.execute(status -> node(jdbcTemplate))).isEqualTo("replica0");
+    }
+
+    private DataSource routing(ReplicaBalancing balancing, String... replicaNames) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String replicaName : replicaNames) {
+            replicas.put(replicaName, h2(replicaName));
+        }
+        routingDataSource = new ReplicaRoutingDataSource(h2("primary"), replicas, balancing, 5, 0,
+                replica -> lag.get());
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private DataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table node (name varchar(20))");
+        jdbcTemplate.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private String node(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private String node(EntityManager em) {
+        return (String) em.createNativeQuery("select name from node").getSingleResult();
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class IndexAdvisorTest {
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Autowired
+    IndexExplainer indexExplainer;
+
+    @Test
+    public void proposalsFromShapes() {
+        List<IndexProposal> proposals = indexAdvisor.advise(List.of(
+                "member.age GOE,member.age LOE",
+                "member.age GOE,member.team.name EQ"));
+
+        assertThat(proposals).extracting(IndexProposal::toDdl).containsExactly(
+                "create index idx_member_age_username_team_id on member (age, username, team_id);",
+                "create index idx_team_name on team (name);",
+                "create index idx_member_team_id_age_username on member (team_id, age, username);");
+    }
+
+    @Test
+    public void entityDeclaresEverySearchConditionIndex() {
+        List<String> advised = indexAdvisor.advise(IndexAdvisor.searchConditionShapes()).stream()
+                .map(IndexProposal::toAnnotation)
+                .collect(Collectors.toList());
+
+        List<String> declared = new ArrayList<>();
+        for (Class<?> entity : List.of(Member.class, Team.class)) {
+            for (Index index : entity.getAnnotation(Table.class).indexes()) {
+                declared.add("@Index(name = \"" + index.name() + "\", columnList = \"" + index.columnList() + "\")");
+            }
+        }
+        assertThat(declared).containsExactlyInAnyOrderElementsOf(advised);
+    }
+
+    @Test
+    public void explainUsesProposedIndex() {
+        for (IndexProposal proposal : indexAdvisor.advise(IndexAdvisor.searchConditionShapes())) {
+            IndexExplainer.Result result = indexExplainer.explain(proposal);
+            assertThat(result.isCandidate()).as(result.toString()).isTrue();
+        }
+    }
+}
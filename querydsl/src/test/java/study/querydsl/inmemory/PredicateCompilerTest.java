@@ -0,0 +1,99 @@
+package study.querydsl.inmemory;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import org.junit.jupiter.api.Test;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class PredicateCompilerTest {
+
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    List<Member> members = List.of(
+            new Member("member1", 10, teamA),
+            new Member("member2", 20, teamA),
+            new Member("member3", 30, teamB),
+            new Member("member4", 40, teamB),
+            new Member("member5", 50)); // 팀 없음
+
+    @Test
+    public void searchConditionHelpers() {
+        // MemberRepositoryImpl 의 usernameEq / teamNameEq / ageGoe / ageLoe 와 같은 식
+        Predicate where = Expressions.allOf(
+                member.team.name.eq("teamB"),
+                member.age.goe(35),
+                member.age.loe(45));
+
+        assertThat(PredicateCompiler.filter(members, where, Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member4");
+        assertThat(PredicateCompiler.filter(members, member.age.between(20, 40), Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member2", "member3", "member4");
+    }
+
+    @Test
+    public void otherRootGoesThroughGetter() {
+        // Member 대상에서 QTeam 루트는 member.getTeam() 을 거친다.
+        assertThat(PredicateCompiler.filter(members, team.name.eq("teamA"), Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member1", "member2");
+    }
+
+    @Test
+    public void nullIsUnknownLikeSql() {
+        // 팀 없는 member5 는 team.name <> 'teamA' 도, not(team.name = 'teamA') 도 아니다.
+        assertThat(PredicateCompiler.filter(members, member.team.name.ne("teamA"), Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member3", "member4");
+        assertThat(PredicateCompiler.filter(members, member.team.name.eq("teamA").not(), Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member3", "member4");
+        assertThat(PredicateCompiler.filter(members,
+                member.team.name.eq("teamA").or(member.age.gt(45)), Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member1", "member2", "member5");
+        assertThat(PredicateCompiler.filter(members, member.team.isNull(), Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member5");
+    }
+
+    @Test
+    public void stringAndInOperators() {
+        assertThat(PredicateCompiler.filter(members, member.username.like("member_"), Member.class)).hasSize(5);
+        assertThat(PredicateCompiler.filter(members, member.username.startsWith("member1"), Member.class)).hasSize(1);
+        assertThat(PredicateCompiler.filter(members, member.age.in(10, 50), Member.class))
+                .extracting(Member::getUsername)
+                .containsExactly("member1", "member5");
+        assertThat(PredicateCompiler.filter(members, member.team.eq(teamB), Member.class)).hasSize(2);
+    }
+
+    @Test
+    public void parallelStream() {
+        List<Member> many = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            many.add(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : teamB));
+        }
+        Predicate where = member.team.name.eq("teamA").and(member.age.goe(90));
+
+        assertThat(PredicateCompiler.filterParallel(many, where, Member.class))
+                .hasSize(PredicateCompiler.filter(many, where, Member.class).size())
+                .hasSize(500)
+                .allMatch(m -> m.getAge() >= 90 && m.getTeam() == teamA);
+    }
+
+    @Test
+    public void unsupportedExpression() {
+        assertThatThrownBy(() -> PredicateCompiler.compile(member.age.add(1).gt(10), Member.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    public void recordsQueryByMethodAndShape() {
+        Team teamA = new Team("metricsTeam");
+        em.persist(teamA);
+        em.persist(new Member("metrics1", 10, teamA));
+        em.persist(new Member("metrics2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("metricsTeam");
+        condition.setAgeGoe(15);
+        memberRepository.searchContent(condition, PageRequest.of(0, 10));
+
+        Timer timer = meterRegistry.find("querydsl.query")
+                .tag("method", "MemberRepositoryImpl.searchContent")
+                .tag("shape", "member.age GOE,team.name EQ")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.find("querydsl.query.rows")
+                .tag("method", "MemberRepositoryImpl.searchContent")
+                .summary()).isNotNull();
+    }
+
+    @Test
+    public void recordsStreamOnClose() {
+        Team teamA = new Team("metricsStreamTeam");
+        em.persist(teamA);
+        em.persist(new Member("metricsStream1", 10, teamA));
+        em.persist(new Member("metricsStream2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("metricsStreamTeam");
+        // registry 를 다른 테스트와 같이 쓰므로 전후 차이로 확인한다.
+        DistributionSummary before = rowsSummary("MemberJpaRepository.searchForEach");
+        long countBefore = before == null ? 0 : before.count();
+        double totalBefore = before == null ? 0 : before.totalAmount();
+
+        List<Object> rows = new ArrayList<>();
+        memberJpaRepository.searchForEach(condition, rows::add);
+
+        Timer timer = meterRegistry.find("querydsl.query")
+                .tag("method", "MemberJpaRepository.searchForEach")
+                .timer();
+        assertThat(timer).isNotNull();
+        DistributionSummary after = rowsSummary("MemberJpaRepository.searchForEach");
+        assertThat(after.count() - countBefore).isEqualTo(1);
+        assertThat(after.totalAmount() - totalBefore).isEqualTo(rows.size());
+    }
+
+    // 같은 JPQL 이라도 실행한 메서드마다 따로 기록된다.
+    @Test
+    public void callSiteIsKeyedByJpqlAndCaller() {
+        QueryMetrics queryMetrics = new QueryMetrics(meterRegistry, 500);
+
+        QueryMetrics.CallSite first = callFromFirst(queryMetrics);
+        QueryMetrics.CallSite second = callFromSecond(queryMetrics);
+
+        assertThat(first.getMethod()).isEqualTo("QueryMetricsTest.callFromFirst");
+        assertThat(second.getMethod()).isEqualTo("QueryMetricsTest.callFromSecond");
+        assertThat(callFromFirst(queryMetrics)).isSameAs(first);
+    }
+
+    private QueryMetrics.CallSite callFromFirst(QueryMetrics queryMetrics) {
+        return queryMetrics.callSite("select metricsCallSite", () -> "none");
+    }
+
+    private QueryMetrics.CallSite callFromSecond(QueryMetrics queryMetrics) {
+        return queryMetrics.callSite("select metricsCallSite", () -> "none");
+    }
+
+    private DistributionSummary rowsSummary(String method) {
+        return meterRegistry.find("querydsl.query.rows")
+                .tag("method", method)
+                .summary();
+    }
+
+    @Test
+    public void shapeIgnoresValues() {
+        String shape1 = QueryMetrics.shapeOf(member.username.eq("a").and(team.name.eq("b")));
+        String shape2 = QueryMetrics.shapeOf(team.name.eq("c").and(member.username.eq("d")));
+        assertThat(shape1).isEqualTo(shape2).isEqualTo("member.username EQ,team.name EQ");
+        assertThat(QueryMetrics.shapeOf(null)).isEqualTo("none");
+    }
+}
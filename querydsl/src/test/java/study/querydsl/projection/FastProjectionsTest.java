@@ -0,0 +1,95 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("projectionTeam");
+        em.persist(team);
+        em.persist(new Member("projection1", 10, team));
+        em.persist(new Member("projection2", 20, team));
+    }
+
+    @Test
+    public void beanSameAsProjectionsBean() {
+        List<MemberDto> fast = queryFactory
+                .select(FastProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .where(member.team.name.eq("projectionTeam"))
+                .orderBy(member.id.asc())
+                .fetch();
+        List<MemberDto> reflection = queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .where(member.team.name.eq("projectionTeam"))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(fast).isEqualTo(reflection).extracting(MemberDto::getUsername)
+                .containsExactly("projection1", "projection2");
+    }
+
+    @Test
+    public void fieldsWithAlias() {
+        // QuerydslBasicTest.findUserDtoByFields_no_fit 와 같은 모양
+        QMember memberSub = new QMember("memberSub");
+        List<UserDto> result = queryFactory
+                .select(FastProjections.fields(UserDto.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(
+                                JPAExpressions
+                                        .select(memberSub.age.max())
+                                        .from(memberSub)
+                                        .where(memberSub.team.name.eq("projectionTeam")), "age")))
+                .from(member)
+                .where(member.team.name.eq("projectionTeam"))
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(result).containsExactly(new UserDto("projection1", 20), new UserDto("projection2", 20));
+    }
+
+    @Test
+    public void nullKeepsDefault() {
+        MemberDto dto = FastProjections.<MemberDto>bean(MemberDto.class, member.username, member.age)
+                .newInstance("name", null);
+        assertThat(dto.getUsername()).isEqualTo("name");
+        assertThat(dto.getAge()).isZero();
+    }
+
+    @Test
+    public void unknownProperty() {
+        assertThatThrownBy(() -> FastProjections.bean(UserDto.class, member.username, member.age))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.querycount;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class QueryCountScopeTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    QueryGuard queryGuard;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void lazyTeamLoadingIsBatched() {
+        List<Long> memberIds = saveMembersInTeams(6);
+
+        try (QueryCountScope scope = QueryCountScope.open()) {
+            List<Member> members = em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                    .setParameter("ids", memberIds)
+                    .getResultList();
+            for (Member member : members) {
+                member.getTeam().getName(); // 지연 로딩
+            }
+
+            // member 조회 1 + team 배치 조회 1
+            assertThat(scope.getTotal()).isEqualTo(2);
+            queryGuard.check(scope, "lazyTeamLoadingIsBatched");
+        }
+    }
+
+    @Test
+    public void repeatedSelectIsDetected() {
+        List<Long> memberIds = saveMembersInTeams(6);
+
+        try (QueryCountScope scope = QueryCountScope.open()) {
+            for (Long memberId : memberIds) {
+                em.find(Member.class, memberId); // 건건이 조회
+            }
+
+            assertThat(scope.repeatedSelects(5)).hasSize(1);
+            assertThatThrownBy(() -> queryGuard.check(scope, "repeatedSelectIsDetected"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("N+1");
+        }
+    }
+
+    // 커밋 전(beforeCommit)에 확인해서 FAIL 이면 트랜잭션이 롤백된다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void transactionScopeFailsBeforeCommit() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> memberIds = tx.execute(status -> saveMembersInTeams(6));
+        try {
+            assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+                QueryCountScope scope = queryGuard.checkTransaction("transactionScopeFailsBeforeCommit");
+                for (Long memberId : memberIds) {
+                    em.find(Member.class, memberId);
+                }
+                assertThat(scope.getTotal()).isEqualTo(6);
+            }))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("N+1");
+
+            // 트랜잭션이 끝나면 scope 도 닫힌다.
+            assertThat(QueryCountScope.current()).isNull();
+        } finally {
+            tx.executeWithoutResult(status -> {
+                for (Long memberId : memberIds) {
+                    Member member = em.find(Member.class, memberId);
+                    em.remove(member);
+                    em.remove(member.getTeam());
+                }
+            });
+        }
+    }
+
+    // 팀 하나에 회원 하나씩
+    private List<Long> saveMembersInTeams(int count) {
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Team team = new Team("guardTeam" + i);
+            em.persist(team);
+            Member member = new Member("guard" + i, i, team);
+            em.persist(member);
+            memberIds.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+        return memberIds;
+    }
+}
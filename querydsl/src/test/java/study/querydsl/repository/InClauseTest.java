@@ -0,0 +1,31 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InClauseTest {
+
+    @Test
+    public void pad() {
+        assertThat(InClause.pad(Arrays.asList(1L, 2L, 3L))).containsExactly(1L, 2L, 3L, 3L);
+        assertThat(InClause.pad(Arrays.asList(1L, 1L, 2L))).containsExactly(1L, 2L);
+        assertThat(InClause.pad(Arrays.asList(1L, 2L, 3L, 4L, 5L))).hasSize(8);
+    }
+
+    @Test
+    public void paddedChunks() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < InClause.MAX_SIZE + 3; i++) {
+            ids.add(i);
+        }
+        List<List<Long>> chunks = InClause.paddedChunks(ids);
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks.get(0)).hasSize(InClause.MAX_SIZE);
+        assertThat(chunks.get(1)).containsExactly((long) InClause.MAX_SIZE, InClause.MAX_SIZE + 1L, InClause.MAX_SIZE + 2L, InClause.MAX_SIZE + 2L);
+    }
+}
@@ -0,0 +1,146 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.querycount.QueryCountScope;
+import study.querydsl.service.MemberBulkService;
+import study.querydsl.service.MemberIngestService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 비동기 쿼리는 다른 쓰레드 / 커넥션에서 실행되므로 테스트 트랜잭션 없이 데이터를 커밋하고 지운다.
+ */
+@SpringBootTest
+class MemberAsyncRepositoryTest {
+
+    @Autowired
+    MemberAsyncRepository memberAsyncRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberIngestService memberIngestService;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    void before() {
+        List<MemberIngestRow> rows = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            rows.add(new MemberIngestRow("async" + i, i, "asyncTeam"));
+        }
+        memberIngestService.ingest(rows.iterator());
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("asyncTeam");
+    }
+
+    @AfterEach
+    void after() {
+        memberBulkService.delete(condition);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                queryFactory.delete(team).where(team.name.eq("asyncTeam")).execute());
+    }
+
+    @Test
+    public void searchPageComplex() {
+        PageRequest pageRequest = PageRequest.of(1, 3);
+
+        Page<MemberTeamDto> async = memberAsyncRepository.searchPageComplex(condition, pageRequest).join();
+        Page<MemberTeamDto> sync = memberRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(async.getTotalElements()).isEqualTo(7);
+        assertThat(async.getContent()).isEqualTo(sync.getContent());
+    }
+
+    @Test
+    public void searchPageComplexLastPage() {
+        // 마지막 페이지라 content 로 total 을 알 수 있다.
+        Page<MemberTeamDto> async = memberAsyncRepository.searchPageComplex(condition, PageRequest.of(2, 3)).join();
+
+        assertThat(async.getContent()).hasSize(1);
+        assertThat(async.getTotalElements()).isEqualTo(7);
+    }
+
+    // count 쿼리가 끝나지 않아도 content 쿼리는 따로 실행된다.
+    @Test
+    public void searchPageComplexRunsContentAndCountConcurrently() throws InterruptedException {
+        CountDownLatch contentDone = new CountDownLatch(1);
+        CountDownLatch releaseCount = new CountDownLatch(1);
+        List<MemberTeamDto> rows = List.of(
+                new MemberTeamDto(1L, "a", 1, 1L, "t"),
+                new MemberTeamDto(2L, "b", 2, 1L, "t"),
+                new MemberTeamDto(3L, "c", 3, 1L, "t"));
+
+        MemberRepository repository = mock(MemberRepository.class);
+        when(repository.searchContent(any(), any())).thenAnswer(invocation -> {
+            contentDone.countDown();
+            return rows;
+        });
+        when(repository.searchCount(any())).thenAnswer(invocation -> {
+            releaseCount.await();
+            return 10L;
+        });
+
+        MemberAsyncRepository asyncRepository = new MemberAsyncRepository(repository, new MemberSearchCoalescer(false, 0), 2, 10);
+        try {
+            CompletableFuture<Page<MemberTeamDto>> page = asyncRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+
+            assertThat(contentDone.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(page).isNotDone(); // 꽉 찬 첫 페이지라 count 가 필요하다
+
+            releaseCount.countDown();
+            assertThat(page.join().getTotalElements()).isEqualTo(10);
+        } finally {
+            releaseCount.countDown();
+            asyncRepository.destroy();
+        }
+    }
+
+    @Test
+    public void queryCountScopePropagated() {
+        try (QueryCountScope scope = QueryCountScope.open()) {
+            memberAsyncRepository.search(condition).join();
+
+            // 쿼리 쓰레드에서 실행된 쿼리도 요청 쓰레드의 scope 에 기록된다.
+            assertThat(scope.getTotal()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void search() {
+        assertThat(memberAsyncRepository.search(condition).join()).hasSize(7);
+    }
+}
@@ -0,0 +1,69 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * member.count-cache.budget-ms 가 설정된 경우
+ * - count 쿼리에 timeout 이 걸린 채로 정확한 count 를 돌려준다.
+ * - 근사 count 는 approximate-cap 까지만 센다. (JDBC 조회라 flush 필요)
+ */
+@SpringBootTest(properties = {
+        "member.count-cache.budget-ms=300",
+        "member.count-cache.approximate-cap=3"})
+@Transactional
+class MemberCountBudgetTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    MemberSqlRepository sqlRepository;
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("budgetTeam");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("budget" + i, 10 + i, team));
+        }
+        em.flush();
+        memberCountCache.invalidateAll();
+        condition.setTeamName("budgetTeam");
+    }
+
+    @Test
+    public void countWithinBudget() {
+        assertThat(memberCountCache.getBudgetSeconds()).isEqualTo(1); // 300ms -> 1초
+        assertThat(memberRepository.searchCount(condition)).isEqualTo(5);
+        assertThat(memberCountCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void approximateCountStopsAtCap() {
+        int timeout = memberCountCache.getBudgetSeconds();
+        assertThat(sqlRepository.countUpTo(condition, memberCountCache.getApproximateCap(), timeout)).isEqualTo(3);
+        assertThat(sqlRepository.countUpTo(condition, 10, timeout)).isEqualTo(5);
+
+        condition.setAgeGoe(13);
+        assertThat(sqlRepository.countUpTo(condition, 10, timeout)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.QueryTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberCountCacheTest {
+
+    MemberCountCache countCache = new MemberCountCache(30000, 1000, 1, 3);
+
+    @Test
+    public void budgetIsRoundedUpToSeconds() {
+        assertThat(MemberCountCache.toTimeoutSeconds(0)).isEqualTo(0);
+        assertThat(MemberCountCache.toTimeoutSeconds(1)).isEqualTo(1);
+        assertThat(MemberCountCache.toTimeoutSeconds(499)).isEqualTo(1);
+        assertThat(MemberCountCache.toTimeoutSeconds(1000)).isEqualTo(1);
+        assertThat(MemberCountCache.toTimeoutSeconds(1001)).isEqualTo(2);
+        assertThat(countCache.getBudgetSeconds()).isEqualTo(1);
+    }
+
+    @Test
+    public void approximateCountIsNotCached() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        long approximate = countCache.get(condition, () -> {
+            throw new QueryTimeoutException("budget 초과");
+        }, timeout -> 3L);
+        assertThat(approximate).isEqualTo(3);
+        assertThat(countCache.size()).isEqualTo(0);
+
+        // 다음 요청은 다시 정확한 count 를 시도하고, 성공하면 캐시한다.
+        assertThat(countCache.get(condition, () -> 5L, timeout -> 3L)).isEqualTo(5);
+        assertThat(countCache.get(condition, () -> 7L, timeout -> 3L)).isEqualTo(5);
+        assertThat(countCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void approximateTimeoutIsUnknown() {
+        long total = countCache.get(new MemberSearchCondition(), () -> {
+            throw new QueryTimeoutException("budget 초과");
+        }, timeout -> {
+            assertThat(timeout).isGreaterThanOrEqualTo(1); // 근사 count 에도 timeout 을 건다.
+            throw new org.springframework.dao.QueryTimeoutException("근사 count 도 초과");
+        });
+        assertThat(total).isEqualTo(MemberCountCache.UNKNOWN);
+        assertThat(MemberCountCache.orLowerBound(total, 20, 10, 10)).isEqualTo(31);
+        assertThat(MemberCountCache.orLowerBound(7, 20, 10, 10)).isEqualTo(7);
+    }
+
+    @Test
+    public void countStartedBeforeInvalidateIsNotCached() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        long total = countCache.get(condition, () -> {
+            countCache.invalidateAll(); // count 도중 벌크 연산
+            return 5L;
+        });
+        assertThat(total).isEqualTo(5);
+        assertThat(countCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void timeoutWithoutFallbackIsRethrown() {
+        assertThatThrownBy(() -> countCache.get(new MemberSearchCondition(), () -> {
+            throw new QueryTimeoutException("budget 초과");
+        })).isInstanceOf(QueryTimeoutException.class);
+        assertThat(countCache.size()).isEqualTo(0);
+    }
+}
@@ -12,6 +12,7 @@ import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -72,4 +73,23 @@ class MemberJpaRepositoryTest {
         List<MemberTeamDto> result = memberJpaRepository.search(condition);
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchForEachTest() {
+        Team teamA = new Team("streamTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("streamTeam");
+        condition.setAgeGoe(50);
+
+        List<MemberTeamDto> streamed = new ArrayList<>();
+        memberJpaRepository.searchForEach(condition, streamed::add);
+
+        assertThat(streamed).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+        assertThat(streamed).hasSize(5);
+    }
+}
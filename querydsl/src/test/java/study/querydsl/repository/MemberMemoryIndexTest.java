@@ -0,0 +1,165 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 메모리 인덱스 결과를 JPA 경로(MemberJpaRepository.search) 와 비교한다.
+ * - 이벤트는 커밋 후에 반영되므로 트랜잭션을 커밋하면서 확인한다.
+ */
+@SpringBootTest(properties = "member.memory-index.enabled=true")
+class MemberMemoryIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberMemoryIndex memoryIndex;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    TransactionTemplate tx;
+    Long teamBId;
+    Long memberId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("memTeamA");
+            Team teamB = new Team("memTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member first = new Member("memMember0", 0, teamA);
+            em.persist(first);
+            for (int i = 1; i < 10; i++) {
+                em.persist(new Member("memMember" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+            em.persist(new Member("memMember1", 55)); // 같은 이름, 팀 없음
+            em.flush();
+            teamBId = teamB.getId();
+            memberId = first.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String teamName : List.of("memTeamA", "memTeamB", "memTeamC")) {
+            memberRepository.bulkDelete(teamName(teamName));
+        }
+        MemberSearchCondition noTeam = new MemberSearchCondition();
+        noTeam.setUsername("memMember1");
+        memberRepository.bulkDelete(noTeam);
+        tx.executeWithoutResult(status ->
+                em.createQuery("delete from Team t where t.name like 'memTeam%'").executeUpdate());
+    }
+
+    @Test
+    public void sameResultAsJpa() {
+        assertThat(memoryIndex.deltaSize()).isPositive(); // setUp 에서 커밋한 member 는 delta 에서 읽는다.
+        for (MemberSearchCondition condition : conditions()) {
+            assertThat(memoryIndex.search(condition))
+                    .as(condition.toString())
+                    .containsExactlyElementsOf(jpaSearch(condition));
+        }
+    }
+
+    @Test
+    public void paging() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(70);
+        List<MemberTeamDto> expected = jpaSearch(condition);
+
+        assertThat(memberRepository.searchContent(condition, PageRequest.of(1, 2)))
+                .containsExactlyElementsOf(expected.subList(2, 4));
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)).getTotalElements())
+                .isEqualTo(expected.size());
+    }
+
+    @Test
+    public void followsCommittedChanges() {
+        // changeTeam + team 이름 변경
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).changeTeam(em.find(Team.class, teamBId));
+            em.find(Team.class, teamBId).changeName("memTeamC");
+        });
+        assertThat(memoryIndex.search(teamName("memTeamC")))
+                .containsExactlyElementsOf(jpaSearch(teamName("memTeamC")))
+                .extracting(MemberTeamDto::getUsername)
+                .contains("memMember0");
+        assertThat(memoryIndex.search(teamName("memTeamB"))).isEmpty();
+        assertThat(memoryIndex.deltaSize()).isZero(); // 팀 이름이 바뀌면 스냅샷을 새로 만든다.
+
+        // 롤백된 변경은 반영하지 않는다.
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(99);
+            status.setRollbackOnly();
+        });
+        MemberSearchCondition age99 = new MemberSearchCondition();
+        age99.setAgeGoe(99);
+        assertThat(memoryIndex.search(age99)).containsExactlyElementsOf(jpaSearch(age99));
+
+        // 벌크 연산
+        memberRepository.bulkAddAge(teamName("memTeamA"), 1);
+        assertThat(memoryIndex.search(teamName("memTeamA"))).containsExactlyElementsOf(jpaSearch(teamName("memTeamA")));
+
+        // delete
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, memberId)));
+        assertThat(memoryIndex.search(teamName("memTeamC"))).containsExactlyElementsOf(jpaSearch(teamName("memTeamC")));
+    }
+
+    private List<MemberTeamDto> jpaSearch(MemberSearchCondition condition) {
+        return memberJpaRepository.search(condition).stream()
+                .sorted(Comparator.comparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList());
+    }
+
+    private static List<MemberSearchCondition> conditions() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (String username : new String[]{null, "", "memMember1", "memMember3", "none"}) {
+            for (String teamName : new String[]{null, "memTeamA", "memTeamB", "none"}) {
+                for (Integer[] ages : new Integer[][]{{null, null}, {20, null}, {null, 40}, {30, 60}, {60, 30}}) {
+                    MemberSearchCondition condition = new MemberSearchCondition();
+                    condition.setUsername(username);
+                    condition.setTeamName(teamName);
+                    condition.setAgeGoe(ages[0]);
+                    condition.setAgeLoe(ages[1]);
+                    conditions.add(condition);
+                }
+            }
+        }
+        return conditions;
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberStats;
+import study.querydsl.service.MemberIngestService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 병렬 스캔은 범위마다 별도 트랜잭션이라 데이터를 커밋하고 확인한다.
+ * 파티션 결과를 합친 값이 쿼리 한번(QuerydslBasicTest.aggregation / group) 의 결과와 같아야 한다.
+ */
+@SpringBootTest(properties = {"member.scan.parallelism=3", "member.scan.partitions=7"})
+class MemberPartitionScannerTest {
+
+    @Autowired
+    MemberPartitionScanner scanner;
+
+    @Autowired
+    MemberIngestService ingestService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        List<MemberIngestRow> rows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            rows.add(new MemberIngestRow("scanMember" + i, i % 70, i % 3 == 0 ? "scanTeamA" : "scanTeamB"));
+        }
+        ingestService.ingest(rows.iterator());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String teamName : List.of("scanTeamA", "scanTeamB")) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName(teamName);
+            memberRepository.bulkDelete(condition);
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                queryFactory.delete(team).where(team.name.startsWith("scanTeam")).execute());
+    }
+
+    @Test
+    public void aggregateMatchesSingleQuery() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        Tuple expected = new TransactionTemplate(transactionManager).execute(status -> queryFactory
+                .select(member.count(), member.age.sum(), member.age.max(), member.age.min())
+                .from(member)
+                .where(member.age.goe(10))
+                .fetchOne());
+
+        MemberStats stats = scanner.aggregate(condition);
+        assertThat(stats.getCount()).isEqualTo(expected.get(0, Long.class));
+        assertThat(stats.getSum()).isEqualTo(expected.get(1, Number.class).longValue());
+        assertThat(stats.getMax()).isEqualTo(expected.get(2, Integer.class));
+        assertThat(stats.getMin()).isEqualTo(expected.get(3, Integer.class));
+    }
+
+    @Test
+    public void aggregateByTeamMatchesGroupBy() {
+        Map<String, MemberStats> byTeam = scanner.aggregateByTeam(new MemberSearchCondition());
+
+        List<Tuple> expected = new TransactionTemplate(transactionManager).execute(status -> queryFactory
+                .select(team.name, member.count(), member.age.sum())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch());
+        assertThat(byTeam).hasSize(expected.size());
+        for (Tuple row : expected) {
+            MemberStats stats = byTeam.get(row.get(team.name));
+            assertThat(stats.getCount()).isEqualTo(row.get(1, Long.class));
+            assertThat(stats.getSum()).isEqualTo(row.get(2, Number.class).longValue());
+        }
+        assertThat(byTeam.get("scanTeamA").getCount()).isEqualTo(100);
+    }
+
+    @Test
+    public void forEachReadsEveryRowOnce() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("scanTeamB");
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        long count = scanner.forEach(condition, row -> {
+            ids.add(row.getMemberId());
+            threads.add(Thread.currentThread().getName());
+        });
+
+        assertThat(count).isEqualTo(200);
+        assertThat(ids).hasSize(200);
+        assertThat(threads).allMatch(name -> name.startsWith("member-scan-"));
+    }
+}
@@ -1,20 +1,36 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
 
 @SpringBootTest
 @Transactional
@@ -26,6 +42,27 @@ class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    MemberSearchQueryCache memberSearchQueryCache;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     @Test
     public void basicTest() {
         Member member1 = new Member("member1", 10);
@@ -89,4 +126,249 @@ class MemberRepositoryTest {
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result).extracting("username").containsExactly("member1", "member2", "member3");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchAfter() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 1040, teamA);
+        Member member2 = new Member("member2", 1020, teamA);
+        Member member3 = new Member("member3", 1020, teamB);
+        Member member4 = new Member("member4", 1010, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1000); // 다른 테스트에서 커밋된 데이터 제외
+
+        // id 순서
+        MemberCursor cursor = MemberCursor.first(MemberCursor.Order.ID);
+        Slice<MemberTeamDto> first = memberRepository.searchAfter(condition, cursor, 3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first).extracting("username").containsExactly("member1", "member2", "member3");
+
+        MemberCursor next = MemberCursor.decode(cursor.next(first.getContent().get(2)).encode());
+        Slice<MemberTeamDto> second = memberRepository.searchAfter(condition, next, 3);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second).extracting("username").containsExactly("member4");
+
+        // (age, id) 순서
+        MemberCursor ageCursor = MemberCursor.first(MemberCursor.Order.AGE_ID);
+        Slice<MemberTeamDto> byAge = memberRepository.searchAfter(condition, ageCursor, 2);
+        assertThat(byAge).extracting("username").containsExactly("member4", "member2");
+
+        MemberCursor ageNext = MemberCursor.decode(ageCursor.next(byAge.getContent().get(1)).encode());
+        Slice<MemberTeamDto> byAgeNext = memberRepository.searchAfter(condition, ageNext, 2);
+        assertThat(byAgeNext.hasNext()).isFalse();
+        assertThat(byAgeNext).extracting("username").containsExactly("member3", "member1");
+    }
+
+    @Test
+    public void searchPageComplexCountCache() {
+        Team teamA = new Team("cacheTeam");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 10 + i, teamA));
+        }
+        memberCountCache.invalidateAll();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("cacheTeam");
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(memberCountCache.size()).isEqualTo(1);
+
+        // 빈 문자열 조건은 null 과 같은 key
+        MemberSearchCondition same = new MemberSearchCondition();
+        same.setTeamName("cacheTeam");
+        same.setUsername("");
+        assertThat(memberRepository.searchPageComplex(same, PageRequest.of(1, 2)).getTotalElements()).isEqualTo(5);
+        assertThat(memberCountCache.size()).isEqualTo(1);
+
+        // 벌크 연산 후에는 캐시가 비워진다.
+        MemberSearchCondition deleteCondition = new MemberSearchCondition();
+        deleteCondition.setTeamName("cacheTeam");
+        deleteCondition.setAgeGoe(13);
+        long deleted = memberRepository.bulkDelete(deleteCondition);
+        em.clear();
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(memberCountCache.size()).isEqualTo(0);
+        assertThat(memberRepository.searchPageComplex(condition, pageRequest).getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchPageStrategy() {
+        Team teamA = new Team("strategyA");
+        Team teamB = new Team("strategyB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, 10 + i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("strategyA");
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        Page<MemberTeamDto> window = memberRepository.searchPage(condition, pageRequest, MemberPageStrategy.WINDOW);
+        Page<MemberTeamDto> split = memberRepository.searchPage(condition, pageRequest, MemberPageStrategy.SPLIT);
+
+        assertThat(window.getTotalElements()).isEqualTo(3);
+        assertThat(window.getContent()).isEqualTo(split.getContent());
+        assertThat(window.getTotalElements()).isEqualTo(split.getTotalElements());
+
+        // offset 이 전체 건수를 넘는 경우
+        Page<MemberTeamDto> empty = memberRepository.searchPage(condition, PageRequest.of(5, 2), MemberPageStrategy.WINDOW);
+        assertThat(empty.getContent()).isEmpty();
+        assertThat(empty.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchQueryCache() {
+        Team teamA = new Team("preparedA");
+        Team teamB = new Team("preparedB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 6; i++) {
+            em.persist(new Member("prepared" + i, 10 * i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("preparedA");
+        condition.setAgeGoe(20);
+
+        long miss = memberSearchQueryCache.getMissCount();
+        long hit = memberSearchQueryCache.getHitCount();
+
+        List<MemberTeamDto> first = memberRepository.search(condition);
+        condition.setAgeGoe(0); // 값만 바뀌고 모양은 같다
+        List<MemberTeamDto> second = memberRepository.search(condition);
+
+        assertThat(first).extracting("username").containsExactly("prepared2", "prepared4");
+        assertThat(second).containsExactlyElementsOf(memberJpaRepository.search(condition));
+        assertThat(memberSearchQueryCache.getMissCount() - miss).isLessThanOrEqualTo(1);
+        assertThat(memberSearchQueryCache.getHitCount() - hit).isGreaterThanOrEqualTo(1);
+        assertThat(meterRegistry.get("querydsl.search.query-cache").tag("result", "hit").functionCounter().count())
+                .isEqualTo(memberSearchQueryCache.getHitCount());
+        assertThat(meterRegistry.get("querydsl.search.query-cache").tag("result", "miss").functionCounter().count())
+                .isEqualTo(memberSearchQueryCache.getMissCount());
+    }
+
+    @Test
+    public void searchByIds() {
+        Team teamA = new Team("inTeam");
+        em.persist(teamA);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < InClause.MAX_SIZE + 10; i++) {
+            Member member = new Member("in" + i, i, teamA);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5);
+
+        List<MemberTeamDto> result = memberRepository.searchByIds(ids, condition);
+        assertThat(result).hasSize(InClause.MAX_SIZE + 5);
+        assertThat(result).extracting("memberId").isSorted().doesNotHaveDuplicates();
+        assertThat(memberRepository.searchByIds(ids.subList(0, 3), new MemberSearchCondition())).hasSize(3);
+    }
+
+    /**
+     * 쿼리 캐시는 커밋된 데이터에만 쓰이므로 테스트 트랜잭션 없이 커밋하고 지운다.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void teamSearchCacheInvalidatedByBulkUpdate() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team cachedTeam = new Team("cachedTeam");
+            em.persist(cachedTeam);
+            em.persist(new Member("cached1", 10, cachedTeam));
+            em.persist(new Member("cached2", 20, cachedTeam));
+        });
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            CacheRegionStatistics region = statistics.getQueryRegionStatistics(MemberSearchQueryCache.TEAM_SEARCH_REGION);
+            long hit = region.getHitCount();
+            long miss = region.getMissCount();
+
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("cachedTeam");
+
+            assertThat(memberRepository.search(condition)).extracting("age").containsExactlyInAnyOrder(10, 20);
+            assertThat(memberRepository.search(condition)).extracting("age").containsExactlyInAnyOrder(10, 20);
+            assertThat(region.getMissCount() - miss).isEqualTo(1);
+            assertThat(region.getHitCount() - hit).isEqualTo(1);
+
+            // 영속성 컨텍스트를 거치지 않는 벌크 연산도 쿼리 캐시를 무효화해야 한다.
+            memberRepository.bulkAddAge(condition, 1);
+
+            assertThat(memberRepository.search(condition)).extracting("age").containsExactlyInAnyOrder(11, 21);
+            assertThat(region.getMissCount() - miss).isEqualTo(2);
+            assertThat(region.getHitCount() - hit).isEqualTo(1);
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+            tx.executeWithoutResult(status -> {
+                queryFactory.delete(member).where(member.username.startsWith("cached")).execute();
+                queryFactory.delete(team).where(team.name.eq("cachedTeam")).execute();
+            });
+        }
+    }
+
+    @Test
+    public void searchPageSort() {
+        Team team = new Team("sortTeam");
+        em.persist(team);
+        int[] ages = {30, 10, 20, 10, 40};
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ages.length; i++) {
+            Member member = new Member("sort" + i, ages[i], team);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sortTeam");
+
+        Page<MemberTeamDto> byAgeDesc = memberRepository.searchPageComplex(condition,
+                PageRequest.of(0, 10, Sort.by(Sort.Order.desc("age"))));
+        assertThat(byAgeDesc.getContent()).extracting("age").containsExactly(40, 30, 20, 10, 10);
+        // 같은 나이는 member.id 로 (첫 정렬과 같은 방향)
+        assertThat(byAgeDesc.getContent()).extracting("memberId").endsWith(ids.get(3), ids.get(1));
+
+        Page<MemberTeamDto> byTeamNameAndUsername = memberRepository.searchPageSimple(condition,
+                PageRequest.of(0, 2, Sort.by("teamName", "username")));
+        assertThat(byTeamNameAndUsername.getContent()).extracting("username").containsExactly("sort0", "sort1");
+
+        // 정렬이 없어도 id 순
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getContent())
+                .extracting("memberId").containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    public void searchPageSortRejected() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("sortTeam");
+
+        // whitelist 에 없는 속성
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 10, Sort.by("team.id"))))
+                .hasMessageContaining("정렬할 수 없는 속성");
+
+        // 인덱스가 없는 정렬의 깊은 페이지는 cursor 로
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(condition, PageRequest.of(200, 10, Sort.by("age"))))
+                .hasMessageContaining("cursor");
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(200, 10, Sort.by("id").descending())))
+                .isEmpty();
+    }
+}
@@ -0,0 +1,136 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSearchCoalescerTest {
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentSameSearchRunsOnce() throws Exception {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // 빈 문자열 == null 로 정규화되므로 같은 요청
+            MemberSearchCondition condition = condition(i % 2 == 0 ? "" : null, "teamA");
+            results.add(coalescer.coalesce("searchPageSimple", condition, PageRequest.of(0, 10), () ->
+                    CompletableFuture.supplyAsync(() -> {
+                        loads.incrementAndGet();
+                        await(release);
+                        return "page";
+                    }, executor)));
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> result : results) {
+            assertThat(result.get()).isEqualTo("page");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalescer.getExecutedCount()).isEqualTo(1);
+        assertThat(coalescer.getSharedCount()).isEqualTo(99);
+    }
+
+    @Test
+    public void differentPageOrConditionIsNotShared() {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, 0);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        coalescer.coalesce("searchPageSimple", condition(null, "teamA"), PageRequest.of(0, 10), () -> pending);
+        coalescer.coalesce("searchPageSimple", condition(null, "teamA"), PageRequest.of(1, 10), () -> pending);
+        coalescer.coalesce("searchPageSimple", condition(null, "teamB"), PageRequest.of(0, 10), () -> pending);
+        coalescer.coalesce("searchPageComplex", condition(null, "teamA"), PageRequest.of(0, 10), () -> pending);
+
+        assertThat(coalescer.getExecutedCount()).isEqualTo(4);
+        assertThat(coalescer.getSharedCount()).isZero();
+    }
+
+    @Test
+    public void completedResultIsReusedOnlyWithinWindow() {
+        MemberSearchCoalescer noReuse = new MemberSearchCoalescer(true, 0);
+        noReuse.coalesce("search", condition("member1", null), PageRequest.of(0, 10), () -> CompletableFuture.completedFuture("a")).join();
+        noReuse.coalesce("search", condition("member1", null), PageRequest.of(0, 10), () -> CompletableFuture.completedFuture("b")).join();
+        assertThat(noReuse.getExecutedCount()).isEqualTo(2);
+
+        MemberSearchCoalescer reuse = new MemberSearchCoalescer(true, 60_000);
+        reuse.coalesce("search", condition("member1", null), PageRequest.of(0, 10), () -> CompletableFuture.completedFuture("a")).join();
+        String second = reuse.coalesce("search", condition("member1", null), PageRequest.of(0, 10),
+                () -> CompletableFuture.completedFuture("b")).join();
+        assertThat(second).isEqualTo("a");
+
+        // 벌크 연산 후
+        reuse.invalidateAll();
+        String third = reuse.coalesce("search", condition("member1", null), PageRequest.of(0, 10),
+                () -> CompletableFuture.completedFuture("c")).join();
+        assertThat(third).isEqualTo("c");
+    }
+
+    // 한 요청이 자기 future 를 취소해도 같이 기다리던 요청은 결과를 받는다.
+    @Test
+    public void callerCancelDoesNotAffectOthers() {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, 0);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = coalescer.coalesce("search", condition("member1", null), PageRequest.of(0, 10), () -> pending);
+        CompletableFuture<String> second = coalescer.coalesce("search", condition("member1", null), PageRequest.of(0, 10), () -> pending);
+        first.cancel(true);
+        pending.complete("page");
+
+        assertThat(first).isCancelled();
+        assertThat(second.join()).isEqualTo("page");
+        assertThat(coalescer.getSharedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void failureIsNotReused() {
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(true, 60_000);
+
+        CompletableFuture<String> failed = coalescer.coalesce("search", condition("member1", null), PageRequest.of(0, 10),
+                () -> CompletableFuture.failedFuture(new IllegalStateException("db down")));
+        assertThatThrownBy(failed::join)
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+
+        String retried = coalescer.coalesce("search", condition("member1", null), PageRequest.of(0, 10),
+                () -> CompletableFuture.completedFuture("ok")).join();
+        assertThat(retried).isEqualTo("ok");
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        return condition;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkService;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * member.read-model: VIEW
+ * - member_search_view 는 커밋 직전에 반영되므로 트랜잭션을 커밋하면서 확인한다.
+ */
+@SpringBootTest(properties = {"member.read-model=VIEW", "member.search-view.chunk-size=2"})
+class MemberSearchViewTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    @Autowired
+    MemberSearchViewSync searchView;
+
+    @AfterEach
+    void tearDown() {
+        for (String teamName : List.of("viewTeamA", "viewTeamB", "viewTeamC")) {
+            memberRepository.bulkDelete(teamName(teamName));
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from Team t where t.name like 'viewTeam%'").executeUpdate());
+    }
+
+    @Test
+    public void viewFollowsMemberAndTeamChanges() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("viewTeamA");
+            Team teamB = new Team("viewTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("viewMember1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("viewMember2", 20, teamA));
+            em.persist(new Member("viewMember3", 30, teamB));
+            em.flush();
+            return new Long[]{member1.getId(), teamB.getId()};
+        });
+
+        assertThat(memberRepository.search(teamName("viewTeamA")))
+                .extracting(MemberTeamDto::getUsername, MemberTeamDto::getTeamName)
+                .containsExactlyInAnyOrder(tuple("viewMember1", "viewTeamA"), tuple("viewMember2", "viewTeamA"));
+
+        // changeTeam
+        tx.executeWithoutResult(status ->
+                em.find(Member.class, ids[0]).changeTeam(em.find(Team.class, ids[1])));
+        assertThat(memberRepository.search(teamName("viewTeamB")))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("viewMember1", "viewMember3");
+
+        // team 이름 변경
+        tx.executeWithoutResult(status -> em.find(Team.class, ids[1]).changeName("viewTeamC"));
+        assertThat(memberRepository.search(teamName("viewTeamB"))).isEmpty();
+        assertThat(memberRepository.searchPageComplex(teamName("viewTeamC"), PageRequest.of(0, 10)).getTotalElements())
+                .isEqualTo(2);
+
+        // 벌크 연산
+        MemberSearchCondition member3 = new MemberSearchCondition();
+        member3.setUsername("viewMember3");
+        memberRepository.bulkAddAge(member3, 1);
+        memberBulkService.addAge(teamName("viewTeamA"), 5);
+        assertThat(memberRepository.search(member3)).extracting(MemberTeamDto::getAge).containsExactly(31);
+        assertThat(memberRepository.search(teamName("viewTeamA"))).extracting(MemberTeamDto::getAge).containsExactly(25);
+
+        // delete
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids[0])));
+        assertThat(memberRepository.search(teamName("viewTeamC")))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactly("viewMember3");
+    }
+
+    // 비어 있는 view 는 시작할 때 id 범위 chunk 로 다시 채운다.
+    @Test
+    public void rebuildEmptyViewInChunks() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("viewTeamA");
+            em.persist(teamA);
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("viewRebuild" + i, i, teamA));
+            }
+        });
+        tx.executeWithoutResult(status -> em.createNativeQuery("delete from member_search_view").executeUpdate());
+        assertThat(memberRepository.search(teamName("viewTeamA"))).isEmpty();
+
+        searchView.rebuildIfNeeded();
+
+        assertThat(memberRepository.search(teamName("viewTeamA")))
+                .extracting(MemberTeamDto::getUsername, MemberTeamDto::getTeamName)
+                .containsExactlyInAnyOrder(
+                        tuple("viewRebuild0", "viewTeamA"), tuple("viewRebuild1", "viewTeamA"), tuple("viewRebuild2", "viewTeamA"),
+                        tuple("viewRebuild3", "viewTeamA"), tuple("viewRebuild4", "viewTeamA"));
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSortTest {
+
+    MemberSort memberSort = new MemberSort(new String[]{"id", "username+age", "teamName+age"}, 1000);
+
+    @Test
+    public void teamNameIndexBackedOnlyOnView() {
+        List<Sort.Order> orders = List.of(Sort.Order.desc("teamName"), Sort.Order.desc("age"));
+
+        assertThat(memberSort.isIndexBacked(orders, MemberSort.VIEW)).isTrue();
+        // JOIN 경로에서는 member / team 두 테이블에 걸친 정렬
+        assertThat(memberSort.isIndexBacked(orders, MemberSort.JPA)).isFalse();
+        assertThat(memberSort.isIndexBacked(orders, MemberSort.SQL)).isFalse();
+    }
+
+    @Test
+    public void directionComparedOnlyUpToId() {
+        // id 뒤의 정렬은 방향이 달라도 상관 없다.
+        assertThat(memberSort.isIndexBacked(List.of(
+                Sort.Order.asc("username"), Sort.Order.asc("age"), Sort.Order.asc("id"), Sort.Order.desc("teamName")),
+                MemberSort.JPA)).isTrue();
+        assertThat(memberSort.isIndexBacked(List.of(Sort.Order.asc("username"), Sort.Order.desc("age")),
+                MemberSort.JPA)).isFalse();
+    }
+
+    @Test
+    public void rejectedSortIsBadRequest() {
+        assertThatThrownBy(() -> memberSort.orderBy(PageRequest.of(0, 10, Sort.by("team.id")), MemberSort.JPA))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("team.id");
+        assertThatThrownBy(() -> memberSort.orderBy(PageRequest.of(200, 10, Sort.by("age")), MemberSort.JPA))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("cursor");
+    }
+
+    @Test
+    public void unknownIndexBackedProperty() {
+        assertThatThrownBy(() -> new MemberSort(new String[]{"age+team.id"}, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
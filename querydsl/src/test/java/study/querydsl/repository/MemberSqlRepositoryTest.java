@@ -0,0 +1,162 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member.sql-backend.enabled: true
+ * - querydsl-sql 결과를 JPA 경로(MemberJpaRepository.search) 와 비교한다.
+ * - flush 해야 JDBC 조회에서 보인다.
+ */
+@SpringBootTest(properties = "member.sql-backend.enabled=true")
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSqlRepository sqlRepository;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("sqlTeamA");
+        Team teamB = new Team("sqlTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("sqlMember" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("sqlMember1", 55)); // 같은 이름, 팀 없음
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void sameResultAsJpa() {
+        List<MemberSearchCondition> conditions = List.of(
+                condition(null, "sqlTeamA", null, null),
+                condition(null, "sqlTeamB", 30, 70),
+                condition("sqlMember1", null, null, null),
+                condition("sqlMember1", "sqlTeamB", null, null),
+                condition("", "sqlTeamA", 40, null));
+
+        for (MemberSearchCondition condition : conditions) {
+            List<MemberTeamDto> expected = memberJpaRepository.search(condition);
+            assertThat(sqlRepository.search(condition))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(memberRepository.search(condition))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(sqlRepository.count(condition)).isEqualTo(expected.size());
+        }
+    }
+
+    @Test
+    public void leftJoinKeepsMemberWithoutTeam() {
+        List<MemberTeamDto> result = sqlRepository.search(condition("sqlMember1", null, null, null));
+
+        assertThat(result).extracting("age").containsExactlyInAnyOrder(10, 55);
+        assertThat(result).filteredOn(dto -> dto.getAge() == 55)
+                .extracting("teamId", "teamName")
+                .containsExactly(tuple(null, null));
+    }
+
+    @Test
+    public void searchPageComplexUsesSqlBackend() {
+        MemberSearchCondition condition = condition(null, "sqlTeamA", null, null);
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 3));
+
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getContent()).extracting("teamName").containsOnly("sqlTeamA");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    public void searchTopPerTeam() {
+        MemberSearchCondition sqlTeams = condition(null, null, null, null);
+
+        List<MemberTeamDto> youngest = sqlTeamsOnly(memberRepository.searchTopPerTeam(sqlTeams, 2, Sort.Direction.ASC));
+        assertThat(youngest).extracting("teamName", "age").containsExactly(
+                tuple("sqlTeamA", 0), tuple("sqlTeamA", 20),
+                tuple("sqlTeamB", 10), tuple("sqlTeamB", 30));
+
+        List<MemberTeamDto> oldest = sqlTeamsOnly(memberRepository.searchTopPerTeam(sqlTeams, 2, Sort.Direction.DESC));
+        assertThat(oldest).extracting("teamName", "age").containsExactly(
+                tuple("sqlTeamA", 80), tuple("sqlTeamA", 60),
+                tuple("sqlTeamB", 90), tuple("sqlTeamB", 70));
+
+        // 검색조건은 순위를 매기기 전에 적용된다.
+        assertThat(memberRepository.searchTopPerTeam(condition(null, "sqlTeamB", 40, null), 1, Sort.Direction.ASC))
+                .extracting("username").containsExactly("sqlMember5");
+    }
+
+    @Test
+    public void searchTopPerTeamSameAsCorrelatedSubquery() {
+        // row 마다 "나보다 앞 순위(나이, id)인 같은 팀 member 수 < N" 을 세는 상관 서브쿼리
+        QMember memberSub = new QMember("memberSub");
+        List<Long> expected = new JPAQueryFactory(em)
+                .select(member.id)
+                .from(member)
+                .join(member.team, team)
+                .where(
+                        team.name.startsWith("sqlTeam"),
+                        JPAExpressions
+                                .select(memberSub.count())
+                                .from(memberSub)
+                                .where(
+                                        memberSub.team.eq(member.team),
+                                        memberSub.age.lt(member.age)
+                                                .or(memberSub.age.eq(member.age).and(memberSub.id.lt(member.id))))
+                                .lt(3L))
+                .fetch();
+
+        List<MemberTeamDto> ranked = sqlTeamsOnly(memberRepository.searchTopPerTeam(condition(null, null, null, null), 3, Sort.Direction.ASC));
+        assertThat(ranked).extracting("memberId").containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    private List<MemberTeamDto> sqlTeamsOnly(List<MemberTeamDto> result) {
+        return result.stream()
+                .filter(dto -> dto.getTeamName() != null && dto.getTeamName().startsWith("sqlTeam"))
+                .collect(Collectors.toList());
+    }
+
+    private MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
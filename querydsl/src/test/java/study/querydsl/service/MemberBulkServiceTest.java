@@ -0,0 +1,109 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberCountCache;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.bulk.chunk-size=2") // chunk 분할 확인용
+@Transactional
+class MemberBulkServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkService memberBulkService;
+
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void addAgeRefreshesManagedMembers() {
+        Team team = new Team("bulkTeam");
+        em.persist(team);
+        List<Member> members = saveMembers(team, 5);
+        Member untouched = new Member("bulkOther", 99);
+        em.persist(untouched);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkTeam");
+
+        long count = memberBulkService.addAge(condition, 100);
+
+        assertThat(count).isEqualTo(5);
+        // em.clear() 없이도 영속 상태의 엔티티가 최신 값
+        assertThat(members).extracting("age").containsExactly(100, 101, 102, 103, 104);
+        assertThat(em.contains(untouched)).isTrue();
+        assertThat(untouched.getAge()).isEqualTo(99);
+    }
+
+    @Test
+    public void deleteDetachesOnlyAffectedMembers() {
+        Team team = new Team("bulkDeleteTeam");
+        em.persist(team);
+        List<Member> members = saveMembers(team, 5);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkDeleteTeam");
+        condition.setAgeGoe(2);
+
+        long count = memberBulkService.delete(condition);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(em.contains(members.get(0))).isTrue();
+        assertThat(em.contains(members.get(4))).isFalse();
+        assertThat(team.getMembers()).containsExactly(members.get(0), members.get(1));
+        assertThat(em.find(Member.class, members.get(4).getId())).isNull();
+    }
+
+    @Test
+    public void countCacheInvalidatedAgainAfterCommit() {
+        Team team = new Team("bulkCommitTeam");
+        em.persist(team);
+        saveMembers(team, 3);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("bulkCommitTeam");
+        memberBulkService.delete(condition);
+
+        // 커밋 전에 다른 요청이 count 를 다시 채운 경우
+        memberCountCache.get(condition, () -> 3L);
+        assertThat(memberCountCache.size()).isEqualTo(1);
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        try {
+            assertThat(memberCountCache.size()).isZero();
+        } finally {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    em.createQuery("delete from Team t where t.name = 'bulkCommitTeam'").executeUpdate());
+        }
+    }
+
+    private List<Member> saveMembers(Team team, int count) {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Member member = new Member("bulk" + i, i, team);
+            em.persist(member);
+            members.add(member);
+        }
+        return members;
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberIngestRow;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * chunk 마다 별도 트랜잭션(REQUIRES_NEW)으로 커밋하므로 테스트 트랜잭션 없이 확인하고 지운다.
+ */
+@SpringBootTest(properties = "member.ingest.chunk-size=100")
+class MemberIngestServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberIngestService memberIngestService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("ingest")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("ingest")).execute();
+        });
+    }
+
+    @Test
+    public void ingest() {
+        tx.executeWithoutResult(status -> em.persist(new Team("ingestA"))); // 이미 있는 팀은 재사용
+
+        Stream<MemberIngestRow> rows = Stream.concat(
+                IntStream.range(0, 250).mapToObj(i -> new MemberIngestRow("ingest" + i, i, i % 2 == 0 ? "ingestA" : "ingestB")),
+                Stream.of(new MemberIngestRow("ingestNoTeam", 1, null)));
+
+        int count = memberIngestService.ingest(rows); // chunk 3개
+        assertThat(count).isEqualTo(251);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("ingestA");
+        List<MemberTeamDto> teamA = memberRepository.search(condition);
+        assertThat(teamA).hasSize(125);
+        assertThat(teamA).extracting("teamId").containsOnly(teamA.get(0).getTeamId());
+
+        // chunk 가 나뉘어도 팀은 한번만 만든다.
+        condition.setTeamName("ingestB");
+        assertThat(memberRepository.search(condition)).hasSize(125);
+        assertThat(queryFactory.selectFrom(team).where(team.name.startsWith("ingest")).fetch()).hasSize(2);
+        assertThat(memberRepository.findByUsername("ingestNoTeam").get(0).getTeam()).isNull();
+    }
+
+    @Test
+    public void ingestKeepsCallerPersistenceContext() {
+        tx.executeWithoutResult(status -> {
+            Member caller = new Member("ingestCaller", 1);
+            em.persist(caller);
+
+            memberIngestService.ingest(Stream.of(new MemberIngestRow("ingestInner", 2, "ingestC")));
+
+            assertThat(em.contains(caller)).isTrue();
+        });
+
+        assertThat(memberRepository.findByUsername("ingestCaller")).hasSize(1);
+        assertThat(memberRepository.findByUsername("ingestInner")).hasSize(1);
+    }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.InvalidSortException;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 임베디드 H2 3개를 shard 로 사용
+ */
+class ShardedMemberRepositoryTest {
+
+    static final int SHARDS = 3;
+
+    ShardedMemberRepository repository;
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        List<EntityManagerFactory> shards = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            DriverManagerDataSource dataSource =
+                    new DriverManagerDataSource("jdbc:h2:mem:shard" + i + ";DB_CLOSE_DELAY=-1", "sa", "");
+            shards.add(ShardConfig.entityManagerFactory("shard" + i, dataSource, Map.of(
+                    "hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                    "hibernate.hbm2ddl.auto", "create-drop")));
+        }
+        repository = new ShardedMemberRepository(shards, 4);
+
+        for (int t = 0; t < 4; t++) {
+            teamIds.add(repository.saveTeam("shardTeam" + t));
+        }
+        for (int i = 0; i < 40; i++) {
+            repository.save("shardMember" + i, i % 25, teamIds.get(i % 4));
+        }
+        repository.save("shardNoTeam", 99, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.destroy();
+    }
+
+    @Test
+    public void membersAreUniqueAcrossShards() {
+        List<MemberTeamDto> all = repository.search(new MemberSearchCondition());
+
+        assertThat(all).hasSize(41);
+        assertThat(all).extracting(MemberTeamDto::getMemberId).doesNotHaveDuplicates().isSorted();
+        // 팀이 있는 member 는 팀의 shard 에 있다. (shard 마다 id 구간이 다르다)
+        for (MemberTeamDto dto : all) {
+            long shard = Math.round((double) dto.getMemberId() / ShardedMemberRepository.ID_SPAN);
+            assertThat(shard).isEqualTo(repository.shardOf(dto.getTeamId()));
+        }
+    }
+
+    @Test
+    public void teamNamePinsSingleShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("shardTeam1");
+
+        assertThat(repository.targetShards(condition)).containsExactly(repository.shardOf(teamIds.get(1)));
+        assertThat(repository.search(condition))
+                .hasSize(10)
+                .allMatch(dto -> dto.getTeamName().equals("shardTeam1"));
+
+        condition.setTeamName("none");
+        assertThat(repository.targetShards(condition)).isEmpty();
+        assertThat(repository.search(condition)).isEmpty();
+    }
+
+    @Test
+    public void pageMergesBySortAcrossShards() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5);
+        List<MemberTeamDto> expected = repository.search(condition).stream()
+                .sorted(Comparator.comparing(MemberTeamDto::getAge).reversed()
+                        .thenComparing(MemberTeamDto::getMemberId))
+                .collect(Collectors.toList());
+
+        Page<MemberTeamDto> page = repository.searchPageComplex(condition,
+                PageRequest.of(2, 5, Sort.by(Sort.Order.desc("age"))));
+
+        assertThat(page.getContent()).containsExactlyElementsOf(expected.subList(10, 15));
+        assertThat(page.getTotalElements()).isEqualTo(expected.size());
+    }
+
+    @Test
+    public void stringSortOnlyWithinSingleShard() {
+        // 여러 shard 를 merge 할 때는 DB collation 순서를 맞출 수 없다.
+        assertThatThrownBy(() -> repository.searchPageComplex(new MemberSearchCondition(),
+                PageRequest.of(0, 5, Sort.by("username"))))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessageContaining("id, age");
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("shardTeam1");
+        Page<MemberTeamDto> page = repository.searchPageComplex(condition, PageRequest.of(0, 5, Sort.by("username")));
+        assertThat(page.getContent()).extracting(MemberTeamDto::getUsername).isSorted();
+    }
+
+    @Test
+    public void changeTeamMovesMemberToOwningShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("shardMember0");
+        Long memberId = repository.search(condition).get(0).getMemberId();
+
+        // 다른 shard 의 팀으로 이동
+        Long target = teamIds.stream()
+                .filter(teamId -> repository.shardOf(teamId) != repository.shardOf(teamIds.get(0)))
+                .findFirst()
+                .orElseThrow();
+        repository.changeTeam(memberId, target);
+
+        assertThat(repository.search(condition))
+                .singleElement()
+                .satisfies(dto -> {
+                    assertThat(dto.getMemberId()).isEqualTo(memberId);
+                    assertThat(dto.getTeamId()).isEqualTo(target);
+                });
+
+        // team 이름 변경은 모든 shard 에 반영
+        repository.changeTeamName(target, "renamedTeam");
+        MemberSearchCondition renamed = new MemberSearchCondition();
+        renamed.setTeamName("renamedTeam");
+        assertThat(repository.search(renamed)).extracting(MemberTeamDto::getMemberId).contains(memberId);
+    }
+}